@@ -0,0 +1,378 @@
+package io.gaurs.graffiti;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.pmw.tinylog.Logger;
+
+import io.gaurs.graffiti.config.RuntimeConfigurator;
+import io.gaurs.graffiti.model.BuildManifest;
+import io.gaurs.graffiti.model.BuildManifest.Entry;
+import io.gaurs.graffiti.model.ComplexType;
+import io.gaurs.graffiti.model.ComplexTypeCache;
+import io.gaurs.graffiti.model.TypeGraph;
+
+/**
+ * Analyses and renders only the classes modified since the previous run into
+ * the same output location. A class is modified if the crc or size of its
+ * .class file changed, if it was not part of the previous run or if the same
+ * could not render it in full. The classes
+ * whose diagrams refer to a modified or removed class are rendered again as
+ * well. Besides the modified classes, only the classes their diagrams refer to
+ * are read from the class path; the kind of the rest of the classes is taken from the
+ * {@link BuildManifest} for the statistics on the index page.
+ *
+ * The diagrams more than a hop deep show the classes referring to a class as
+ * well; all the classes are analysed then, and the classes whose diagrams show
+ * a modified class now are rendered again along with the ones whose diagrams
+ * showed it before. The package diagrams need all the classes to be analysed
+ * as well; the same are generated again on every run.
+ *
+ * @author gaurs
+ *
+ */
+public class IncrementalBuild {
+
+	private static final String MANIFEST = "graffiti.manifest";
+
+	private final StructureAnalyzer structureAnalyzer;
+
+	/**
+	 * The manifest of the previous run; null if there is none
+	 */
+	private BuildManifest previous;
+
+	/**
+	 * Classes read from the class path by the current run; null if all of them
+	 * were
+	 */
+	private Set<String> analysed;
+
+	/**
+	 * The classes connected by their fields; built on first use once the
+	 * diagrams are more than a hop deep
+	 */
+	private TypeGraph typeGraph;
+
+	public IncrementalBuild(StructureAnalyzer structureAnalyzer) {
+		this.structureAnalyzer = structureAnalyzer;
+	}
+
+	/**
+	 * Analyse the classes modified since the previous run
+	 *
+	 * @param restored
+	 *            true if the whole model is already restored from a snapshot;
+	 *            nothing is read from the class path then
+	 * @return the documented classes to be rendered
+	 */
+	public Collection<ComplexType> analyse(boolean restored) {
+		ComplexTypeCache cache = ComplexTypeCache.getComplexTypeCache();
+		previous = loadManifest();
+
+		// classes removed since the previous run
+		Set<String> removed = new TreeSet<>();
+		if (null != previous) {
+			removed.addAll(previous.getEntries().keySet());
+			removed.removeAll(cache.keySet());
+			removed.forEach(this::deleteOutputs);
+
+			if (!getSettings().equals(previous.getSettings())) {
+				Logger.info("Output settings changed since the previous run; rendering all the classes");
+				previous = null;
+			}
+		}
+
+		if (null == previous) {
+			if (!restored) {
+				structureAnalyzer.analyse();
+			}
+			return cache.getDocumentedTypes();
+		}
+
+		Map<String, Entry> entries = previous.getEntries();
+
+		// classes added or changed since the previous run
+		Set<String> modified = new TreeSet<>();
+		cache.forEach((className, complexType) -> {
+			Entry entry = entries.get(className);
+			if (null == entry || complexType.getEntryCrc() < 0 || entry.getCrc() != complexType.getEntryCrc()
+					|| entry.getSize() != complexType.getEntrySize()) {
+				modified.add(className);
+			}
+		});
+
+		Set<String> changed = new HashSet<>(modified);
+		changed.addAll(removed);
+
+		// the diagrams of the dependents show the tables of the changed
+		// classes; the pages link to the same
+		Set<String> dirty = new TreeSet<>(modified);
+		Map<String, Set<String>> dependents = previous.getDependents();
+		changed.forEach(className -> dirty.addAll(dependents.getOrDefault(className, Collections.emptySet())));
+		dirty.retainAll(cache.keySet());
+
+		// the package diagrams count the fields of all the classes
+		boolean fullModel = RuntimeConfigurator.getConfig().getDiagramDepth() > 1
+				|| RuntimeConfigurator.getConfig().isPackageDiagrams();
+		if (fullModel && !restored) {
+			structureAnalyzer.analyse();
+		}
+
+		// a class refers to the modified ones it was not connected to before
+		if (RuntimeConfigurator.getConfig().getDiagramDepth() > 1) {
+			cache.forEach((className, complexType) -> {
+				if (!Collections.disjoint(getReferences(complexType), changed)) {
+					dirty.add(className);
+				}
+			});
+		}
+
+		Logger.info(modified.size() + " of " + cache.size() + " classes modified since the previous run; rendering "
+				+ dirty.size() + " classes");
+
+		if (restored || fullModel) {
+			return getDocumentedTypes(dirty);
+		}
+
+		structureAnalyzer.analyse(getComplexTypes(dirty));
+
+		// the tables of the classes referred to list their fields
+		Set<String> related = new TreeSet<>();
+		dirty.forEach(className -> {
+			ComplexType complexType = cache.get(className);
+			if (null != complexType) {
+				related.addAll(getReferences(complexType));
+			} else {
+				// the class could not be read any more
+				deleteOutputs(className);
+			}
+		});
+		related.removeAll(dirty);
+		related.retainAll(cache.keySet());
+
+		structureAnalyzer.analyse(getComplexTypes(related));
+
+		analysed = new HashSet<>(dirty);
+		analysed.addAll(related);
+
+		// the kind of the rest of the classes is known from the previous run
+		cache.forEach((className, complexType) -> {
+			if (!analysed.contains(className)) {
+				populateCounts(complexType, entries.get(className).getKind());
+			}
+		});
+
+		return getDocumentedTypes(dirty);
+	}
+
+	/**
+	 * @return true if all the classes were read from the class path
+	 */
+	public boolean isFullyAnalysed() {
+		return null == analysed;
+	}
+
+	/**
+	 * Record the classes of the current run for the next one
+	 * 
+	 * @param incomplete
+	 *            the classes whose outputs could not be generated in full ex:
+	 *            a placeholder image; the same are recorded as modified so
+	 *            that the next run renders them again
+	 */
+	public void saveManifest(Set<String> incomplete) {
+		BuildManifest manifest = new BuildManifest(getSettings());
+
+		if (!incomplete.isEmpty()) {
+			Logger.info(incomplete.size() + " classes could not be rendered in full; the next run renders them again");
+		}
+
+		ComplexTypeCache.getComplexTypeCache().forEach((className, complexType) -> {
+			Set<String> references = null;
+			if (null == analysed || analysed.contains(className)) {
+				references = getReferences(complexType);
+			} else {
+				references = previous.getEntries().get(className).getReferences();
+			}
+
+			// any crc but that of the class file is a change
+			long crc = incomplete.contains(className) ? -1 : complexType.getEntryCrc();
+			manifest.addEntry(className, new Entry(crc, complexType.getEntrySize(), getKind(complexType), references));
+		});
+
+		try {
+			manifest.save(getManifestFile());
+		} catch (IOException exception) {
+			Logger.error("Exception occurred while writing the manifest; the next run renders all the classes",
+					exception);
+			getManifestFile().delete();
+		}
+	}
+
+	private BuildManifest loadManifest() {
+		try {
+			return BuildManifest.load(getManifestFile());
+		} catch (IOException exception) {
+			Logger.error("Exception occurred while reading the manifest; rendering all the classes", exception);
+			return null;
+		}
+	}
+
+	private File getManifestFile() {
+		return new File(RuntimeConfigurator.getConfig().getOutputLocation() + File.separator + MANIFEST);
+	}
+
+	/**
+	 * The settings that change the generated files; the previous run is of no
+	 * use if any of these differ
+	 *
+	 * @return
+	 */
+	private String getSettings() {
+		String settings = "renderer=" + RuntimeConfigurator.getConfig().getRenderer().name().toLowerCase()
+				+ " image-format=" + RuntimeConfigurator.getConfig().getImageFormat().getExtension();
+
+		// the classes of the other entries have no pages
+		if (!RuntimeConfigurator.getConfig().getPages().isEmpty()) {
+			settings += " pages=" + String.join(File.pathSeparator, RuntimeConfigurator.getConfig().getPages());
+		}
+
+		// nor do the excluded classes
+		if (!RuntimeConfigurator.getConfig().getClassFilter().isEmpty()) {
+			settings += " " + RuntimeConfigurator.getConfig().getClassFilter();
+		}
+
+		// nor do the nested classes once folded
+		settings += " inner-classes=" + (RuntimeConfigurator.getConfig().isFoldInnerClasses() ? "fold" : "separate");
+
+		// the tables of the diagrams and their layout
+		settings += " diagram-max-fields=" + RuntimeConfigurator.getConfig().getDiagramMaxFields()
+				+ " large-graph-nodes=" + RuntimeConfigurator.getConfig().getLargeGraphNodes()
+				+ " large-graph-engine=" + RuntimeConfigurator.getConfig().getLargeGraphEngine().getName();
+
+		// the diagrams show more of the classes
+		if (RuntimeConfigurator.getConfig().getDiagramDepth() > 1) {
+			settings += " diagram-depth=" + RuntimeConfigurator.getConfig().getDiagramDepth() + " diagram-max-nodes="
+					+ RuntimeConfigurator.getConfig().getDiagramMaxNodes();
+		}
+		return settings;
+	}
+
+	private List<ComplexType> getComplexTypes(Set<String> classNames) {
+		List<ComplexType> complexTypes = new ArrayList<>(classNames.size());
+		for (String className : classNames) {
+			ComplexType complexType = ComplexTypeCache.getComplexTypeCache().get(className);
+			if (null != complexType) {
+				complexTypes.add(complexType);
+			}
+		}
+		return complexTypes;
+	}
+
+	private List<ComplexType> getDocumentedTypes(Set<String> classNames) {
+		List<ComplexType> complexTypes = getComplexTypes(classNames);
+		complexTypes.removeIf(complexType -> !complexType.isDocumented() || null != complexType.getEnclosingType());
+		return complexTypes;
+	}
+
+	/**
+	 * The types whose tables appear in the diagram of the given class. The
+	 * types outside the class path are referred to by their erasure. The
+	 * nested classes shown on the page of the class are referred to as well;
+	 * so are the classes found by the TypeGraph for the diagrams more than a
+	 * hop deep.
+	 *
+	 * @see StructureAnalyzer.populateNonPrimitiveFieldsData()
+	 *
+	 * @param complexType
+	 * @return
+	 */
+	private Set<String> getReferences(ComplexType complexType) {
+		Set<String> references = new TreeSet<>();
+		complexType.getNestedTypes().forEach(nestedType -> references.add(nestedType.getFullyQualifiedName()));
+
+		RuntimeConfigurator config = RuntimeConfigurator.getConfig();
+		if (config.getDiagramDepth() > 1 && complexType.isDocumented() && null == complexType.getEnclosingType()) {
+			getTypeGraph().getNeighbourhood(complexType, config.getDiagramDepth(), config.getDiagramMaxNodes())
+					.forEach(neighbour -> references.add(neighbour.getFullyQualifiedName()));
+		}
+
+		if (null != complexType.getPageAttributes()) {
+			for (ComplexType attribute : complexType.getPageAttributes().values()) {
+				if (attribute.isPrimitive() || attribute.isArray()) {
+					continue;
+				}
+				references.add(attribute.isGeneric() ? attribute.getName() : attribute.getFullyQualifiedName());
+			}
+		}
+		return references;
+	}
+
+	private TypeGraph getTypeGraph() {
+		if (null == typeGraph) {
+			typeGraph = new TypeGraph(ComplexTypeCache.getComplexTypeCache());
+		}
+		return typeGraph;
+	}
+
+	private char getKind(ComplexType complexType) {
+		if (complexType.isInterface()) {
+			return 'I';
+		} else if (complexType.isAbstract()) {
+			return 'A';
+		}
+		return 'C';
+	}
+
+	/**
+	 * Same as StructureAnalyzer.populateCounts() for a class that is not read
+	 *
+	 * @param complexType
+	 * @param kind
+	 */
+	private void populateCounts(ComplexType complexType, char kind) {
+		complexType.setInterface('I' == kind);
+		complexType.setAbstract('A' == kind);
+
+		if (!complexType.isDocumented()) {
+			return;
+		} else if ('I' == kind) {
+			RuntimeConfigurator.getConfig().incrementInterfaceCount();
+		} else if ('A' == kind) {
+			RuntimeConfigurator.getConfig().incrementAbstractClassCount();
+		} else {
+			RuntimeConfigurator.getConfig().incrementClassesCount();
+		}
+	}
+
+	/**
+	 * Delete the page, image, map and dot file of a class
+	 *
+	 * @param className
+	 */
+	private void deleteOutputs(String className) {
+		RuntimeConfigurator config = RuntimeConfigurator.getConfig();
+
+		List<File> outputs = new ArrayList<>();
+		outputs.add(new File(config.getOutputLocation() + File.separator + className + ".html"));
+		outputs.add(new File(config.getDotFilesLocation() + File.separator + className + ".dot"));
+		for (String extension : new String[] { "png", "map", "svg" }) {
+			outputs.add(new File(config.getPngFilesLocation() + File.separator + className + "." + extension));
+		}
+
+		for (File output : outputs) {
+			if (output.exists() && !output.delete()) {
+				Logger.error("Could not delete : " + output.getPath());
+			}
+		}
+	}
+}
@@ -2,17 +2,30 @@ package io.gaurs.graffiti;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Enumeration;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
 import org.pmw.tinylog.Logger;
 
+import io.gaurs.graffiti.bytecode.ClassDetails;
+import io.gaurs.graffiti.bytecode.ClassFileReader;
+import io.gaurs.graffiti.classpath.ClassPath;
+import io.gaurs.graffiti.classpath.ClassSource;
+import io.gaurs.graffiti.classpath.SourceEntry;
+import io.gaurs.graffiti.config.ClassFilter;
 import io.gaurs.graffiti.config.RuntimeConfigurator;
 import io.gaurs.graffiti.model.ComplexType;
 import io.gaurs.graffiti.model.ComplexTypeCache;
+import io.gaurs.graffiti.model.MavenArtifact;
 
 /**
  * @author gaurs
@@ -20,105 +33,405 @@ import io.gaurs.graffiti.model.ComplexTypeCache;
  */
 public class Parser {
 
+	private static final String CLASS_FILE = ".class";
+
+	// the class files of a jar that are not classes of the same; the base
+	// versions of the classes of a multi release jar are documented instead
+	private static final String MODULE_INFO = "module-info.class";
+	private static final String VERSIONS = "META-INF/versions/";
+
+	/**
+	 * Fully qualified name of every class in the order added to the cache
+	 */
+	private final List<String> parsedClasses = new ArrayList<>();
+
+	/**
+	 * Classes named like nested classes which their class file declares top
+	 * level ex: Foo$ ; the same are not folded
+	 */
+	private final Set<String> topLevelClasses = new HashSet<>();
+
 	/**
-	 * Parse the jar file to get the detail of all the classes. This method then
-	 * creates an instance of ComplexType for each of the found .class file and
-	 * stores the same in cache.
+	 * Used to read the maven details of the artifacts
+	 */
+	private final PomReader pomReader = new PomReader();
+
+	/**
+	 * Used to read the visibility of the classes
+	 */
+	private final ClassFileReader classFileReader = new ClassFileReader();
+
+	/**
+	 * Parse every source of the class path to get the detail of all the
+	 * classes. This method then creates an instance of ComplexType for each of
+	 * the found .class file and stores the same in cache.
+	 * 
+	 * The sources are listed (and their maven details read) in parallel by
+	 * RuntimeConfigurator.getAnalysisThreads() workers. The classes of the
+	 * documented sources left out by the ClassFilter are found while listing
+	 * the same; such classes are marked as excluded. The classes are added
+	 * to the cache in the order of the class path once all of them are listed
+	 * so that the output does not depend upon the order of execution.
 	 * 
-	 * @param jarFileName
+	 * @param classPath
 	 * @return
 	 */
-	public void parse(String jarFileName) {
-		JarFile jarFile = null;
+	public void parse(ClassPath classPath) {
+		List<ClassSource> sources = classPath.getSources();
+		List<Future<Listing>> listings = new ArrayList<>(sources.size());
+		List<MavenArtifact> artifacts = new ArrayList<>();
+
+		int threads = Math.min(RuntimeConfigurator.getConfig().getAnalysisThreads(), sources.size());
+		ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
 		try {
+			for (ClassSource source : sources) {
+				Callable<Listing> listing = () -> {
+					Logger.info("Parsing : " + source.getPath());
+					List<SourceEntry> entries = source.getEntries();
+					Set<String> topLevel = new HashSet<>();
+					Set<String> excluded = classPath.isDocumented(source) ? getExcluded(source, entries, topLevel)
+							: Collections.emptySet();
+					return new Listing(entries, pomReader.read(source, entries), excluded, topLevel);
+				};
 
-			Logger.info("Parsing the jar file : " + jarFileName);
+				if (null != executor) {
+					listings.add(executor.submit(listing));
+				} else {
+					FutureTask<Listing> task = new FutureTask<>(listing);
+					task.run();
+					listings.add(task);
+				}
+			}
 
-			// Load the jar file
-			jarFile = new JarFile(jarFileName);
+			for (int index = 0; index < sources.size(); index++) {
+				try {
+					Listing listing = listings.get(index).get();
+					parse(sources.get(index), listing, classPath.isDocumented(sources.get(index)));
+					artifacts.addAll(listing.artifacts);
+				} catch (ExecutionException exception) {
+					Logger.error("Exception occurred while parsing : " + sources.get(index).getPath(),
+							exception.getCause());
+				}
+			}
+		} catch (InterruptedException exception) {
+			Logger.error("Interrupted while parsing the class path", exception);
+			Thread.currentThread().interrupt();
+		} finally {
+			if (null != executor) {
+				executor.shutdown();
+			}
+		}
 
-			// Get the jar file entries
-			Enumeration<JarEntry> jarFileEntry = jarFile.entries();
+		populateMavenDetails(classPath, artifacts);
 
-			// For every entry
-			while (jarFileEntry.hasMoreElements()) {
-				JarEntry entry = jarFileEntry.nextElement();
+		if (RuntimeConfigurator.getConfig().isFoldInnerClasses()) {
+			foldNestedTypes();
+		}
 
-				// check if it is pom file, if yes populate maven details
-				if (entry.getName().contains("pom.xml")) {
-					popoulateMavenDetails(jarFile.getInputStream(entry));
-				}
+		Logger.info("Parsing complete; " + ComplexTypeCache.getComplexTypeCache().size() + " classes found");
+	}
 
-				// If it is a directory or something other than a class file
-				else if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
+	/**
+	 * The files, the maven artifacts, the excluded class files and the top
+	 * level class files named like nested ones of a source
+	 */
+	private static class Listing {
+		private final List<SourceEntry> entries;
+		private final List<MavenArtifact> artifacts;
+		private final Set<String> excluded;
+		private final Set<String> topLevel;
+
+		Listing(List<SourceEntry> entries, List<MavenArtifact> artifacts, Set<String> excluded,
+				Set<String> topLevel) {
+			this.entries = entries;
+			this.artifacts = artifacts;
+			this.excluded = excluded;
+			this.topLevel = topLevel;
+		}
+	}
+
+	/**
+	 * The packages are matched by name; the visibility is read from the class
+	 * file header. A class that can not be read is left to the analyzer to
+	 * report. While the inner classes are folded, the classes generated by the
+	 * compiler are left out as well : the nested classes marked synthetic and
+	 * the anonymous and local classes ex: Foo$1, Foo$1Local along with the
+	 * classes nested in the same. The same are told apart by their class file
+	 * and not by their name; ex: a scala object Foo$ is a class of its own.
+	 * 
+	 * @param source
+	 * @param entries
+	 * @param topLevel
+	 *            populated with the names of the class files named like
+	 *            nested classes which are top level ex: Foo$.class
+	 * @return names of the class files left out
+	 */
+	private Set<String> getExcluded(ClassSource source, List<SourceEntry> entries, Set<String> topLevel) {
+		ClassFilter filter = RuntimeConfigurator.getConfig().getClassFilter();
+		boolean fold = RuntimeConfigurator.getConfig().isFoldInnerClasses();
+		if (filter.isEmpty() && !fold) {
+			return Collections.emptySet();
+		}
+
+		Set<String> excluded = new HashSet<>();
+		for (SourceEntry entry : entries) {
+			if (!isClassFile(entry.getName())) {
+				continue;
+			}
+
+			String fullyQualifiedName = entry.getName().substring(0, entry.getName().length() - 6).replace('/', '.');
+			if (!filter.isIncluded(fullyQualifiedName)) {
+				excluded.add(entry.getName());
+			} else if (fold && getSimpleName(fullyQualifiedName).indexOf('$') > 0) {
+				// a single read of the class file for both the checks
+				ClassDetails classDetails = readClass(source, entry.getName());
+				if (null == classDetails) {
 					continue;
 				}
 
-				// Get the fully qualified name of the class ex:
-				// org.apache.commons.lang.StringUtils
-				String fullyQualifiedName = entry.getName().substring(0, entry.getName().length() - 6);
-				fullyQualifiedName = fullyQualifiedName.replace('/', '.');
+				if (filter.isPublicOnly() && (classDetails.getAccessFlags() & ClassFileReader.ACC_PUBLIC) == 0) {
+					excluded.add(entry.getName());
+				} else if (classDetails.isSynthetic() || classDetails.isAnonymousOrLocal()) {
+					excluded.add(entry.getName());
+				} else if (!classDetails.isNested()) {
+					topLevel.add(entry.getName());
+				}
+			} else if (filter.isPublicOnly()
+					&& (getAccessFlags(source, entry.getName()) & ClassFileReader.ACC_PUBLIC) == 0) {
+				excluded.add(entry.getName());
+			}
+		}
+		return excluded;
+	}
 
-				// Get the actual class name ex : StringUtils
-				String className = fullyQualifiedName.substring(fullyQualifiedName.lastIndexOf(".") + 1);
+	/**
+	 * @param name
+	 *            of an entry of a source
+	 * @return true if the given entry is the class file of a class; false for
+	 *         the module descriptors and the versioned class files of a multi
+	 *         release jar
+	 */
+	private boolean isClassFile(String name) {
+		return name.endsWith(CLASS_FILE) && !name.startsWith(VERSIONS)
+				&& !(name.equals(MODULE_INFO) || name.endsWith("/" + MODULE_INFO));
+	}
 
-				// Create an instance of ComplexType for each of the loaded
-				// class
-				ComplexType complexType = new ComplexType().setName(className)
-						.setFullyQualifiedName(fullyQualifiedName);
+	private String getSimpleName(String fullyQualifiedName) {
+		return fullyQualifiedName.substring(fullyQualifiedName.lastIndexOf('.') + 1);
+	}
 
-				// Store the same in the cache; the key is fully qualified name
-				// and value is the complex type;
+	/**
+	 * @param source
+	 * @param name
+	 * @return the given class file; null if the same can not be read
+	 */
+	private ClassDetails readClass(ClassSource source, String name) {
+		try (InputStream stream = source.getInputStream(name)) {
+			return null == stream ? null : classFileReader.read(stream);
+		} catch (IOException exception) {
+			Logger.debug("Exception occurred while reading the class file : " + name);
+			return null;
+		}
+	}
 
-				// name is not used as the key due to the obvious reason of
-				// duplicate names in multiple packages
-				ComplexTypeCache.getComplexTypeCache().put(fullyQualifiedName, complexType);
-			}
-			Logger.info("Parsing complete for jar : " + jarFileName);
+	/**
+	 * @param source
+	 * @param name
+	 * @return the access flags of the given class file; that of a public class
+	 *         if the same can not be read
+	 */
+	private int getAccessFlags(ClassSource source, String name) {
+		try (InputStream stream = source.getInputStream(name)) {
+			return classFileReader.readAccessFlags(stream);
 		} catch (IOException exception) {
-			Logger.error("Exception occurred while parsing the jar file", exception);
-		} finally {
-			try {
-				if (null != jarFile) {
-					jarFile.close();
-				}
-			} catch (IOException exception) {
-				Logger.error("Exception occurred while closing the jar file", exception);
+			Logger.debug("Exception occurred while reading the access flags of : " + name);
+			return ClassFileReader.ACC_PUBLIC;
+		}
+	}
+
+	/**
+	 * Add the classes of a single source to the cache
+	 * 
+	 * @param source
+	 * @param listing
+	 * @param documented
+	 */
+	private void parse(ClassSource source, Listing listing, boolean documented) {
+		int shadowed = 0;
+		boolean crcRequired = RuntimeConfigurator.getConfig().isIncremental()
+				|| null != RuntimeConfigurator.getConfig().getSnapshotCacheLocation();
+
+		// For every entry
+		for (SourceEntry entry : listing.entries) {
+
+			// If it is something other than a class file; the maven details
+			// are read by the PomReader
+			if (!isClassFile(entry.getName())) {
+				continue;
 			}
+
+			// Get the fully qualified name of the class ex:
+			// org.apache.commons.lang.StringUtils
+			String fullyQualifiedName = entry.getName().substring(0, entry.getName().length() - 6);
+			fullyQualifiedName = fullyQualifiedName.replace('/', '.');
+
+			// the class is taken from the first source on the class path
+			if (ComplexTypeCache.getComplexTypeCache().containsKey(fullyQualifiedName)) {
+				Logger.debug("Skipping " + fullyQualifiedName + " of " + source.getPath()
+						+ " ; found earlier on the class path");
+				shadowed++;
+				continue;
+			}
+
+			// Get the actual class name ex : StringUtils
+			String className = fullyQualifiedName.substring(fullyQualifiedName.lastIndexOf(".") + 1);
+
+			// Create an instance of ComplexType for each of the loaded
+			// class
+			ComplexType complexType = new ComplexType().setName(className)
+					.setFullyQualifiedName(fullyQualifiedName);
+
+			// used to find the classes changed since the previous run; the crc
+			// of a class directory entry means reading the whole file, hence
+			// the same is read only if kept for a later run
+			if (crcRequired) {
+				complexType.setEntryCrc(entry.getCrc());
+			}
+			complexType.setEntrySize(entry.getSize());
+
+			// used to read the class file during the analysis
+			complexType.setSource(source);
+
+			// an excluded class is only referred to by the fields of the
+			// documented ones
+			boolean excluded = listing.excluded.contains(entry.getName());
+			complexType.setDocumented(documented && !excluded);
+			complexType.setExcluded(excluded);
+
+			// Store the same in the cache; the key is fully qualified name
+			// and value is the complex type;
+
+			// name is not used as the key due to the obvious reason of
+			// duplicate names in multiple packages
+			ComplexTypeCache.getComplexTypeCache().put(fullyQualifiedName, complexType);
+			parsedClasses.add(fullyQualifiedName);
+
+			if (listing.topLevel.contains(entry.getName())) {
+				topLevelClasses.add(fullyQualifiedName);
+			}
+		}
+
+		if (!listing.excluded.isEmpty()) {
+			Logger.info(listing.excluded.size() + " classes of " + source.getPath()
+					+ " are excluded by the filter or generated by the compiler");
+		}
+
+		if (shadowed > 0) {
+			Logger.info(shadowed + " classes of " + source.getPath() + " are found earlier on the class path");
 		}
 	}
 
-	private void popoulateMavenDetails(InputStream stream) {
-		try {
-			Document pom = null;
-			// if pom file can be parsed
-			if (null != stream && null != (pom = Jsoup.parse(stream, "utf-8", ""))) {
-
-				// get the groupid
-				String groupId = pom.getElementsByTag("groupId").first().text();
-				RuntimeConfigurator.getConfig().setGroup(groupId);
-
-				// get the version
-				String version = pom.getElementsByTag("version").first().text();
-				RuntimeConfigurator.getConfig().setVersion(version);
-
-				// artifact id
-				String artifactId = pom.getElementsByTag("artifactId").first().text();
-				RuntimeConfigurator.getConfig().setArtifactId(artifactId);
-
-				// java.version
-				if (null != pom.getElementsByTag("java.version") && !pom.getElementsByTag("java.version").isEmpty()) {
-					String javaVersion = pom.getElementsByTag("java.version").first().text();
-					RuntimeConfigurator.getConfig().setJavaVersion(javaVersion);
-				}
+	/**
+	 * Show every documented nested class on the page of its top level class
+	 * ex: Foo$Bar and Foo$Bar$Baz on that of Foo. A nested class is folded
+	 * only if its top level class is documented and read from the same
+	 * source; else the same has a page of its own.
+	 */
+	private void foldNestedTypes() {
+		ComplexTypeCache cache = ComplexTypeCache.getComplexTypeCache();
 
-				// list of dependencies
-				int dependencies = pom.getElementsByTag("dependency").size();
-				RuntimeConfigurator.getConfig().setDependenciesCount(dependencies);
+		int folded = 0;
+		for (String className : parsedClasses) {
+			ComplexType complexType = cache.get(className);
+			ComplexType enclosingType = getEnclosingType(complexType, cache);
+			if (null != enclosingType) {
+				complexType.setEnclosingType(enclosingType);
+				enclosingType.addNestedType(complexType);
+				folded++;
 			}
+		}
 
-		} catch (IOException exception) {
-			Logger.error("Exception occurred while parsing pom.xml");
+		if (folded > 0) {
+			Logger.info(folded + " nested classes are shown on the pages of their enclosing classes");
+		}
+	}
+
+	/**
+	 * @param complexType
+	 * @param cache
+	 * @return the top level class whose page shows the given class; null if
+	 *         the same has a page of its own
+	 */
+	private ComplexType getEnclosingType(ComplexType complexType, ComplexTypeCache cache) {
+		if (!complexType.isDocumented() || topLevelClasses.contains(complexType.getFullyQualifiedName())) {
+			return null;
+		}
+
+		String fullyQualifiedName = complexType.getFullyQualifiedName();
+		int separator = fullyQualifiedName.indexOf('$', fullyQualifiedName.lastIndexOf('.') + 2);
+		if (separator < 0) {
+			return null;
+		}
+
+		ComplexType enclosingType = cache.get(fullyQualifiedName.substring(0, separator));
+		if (null == enclosingType || !enclosingType.isDocumented()
+				|| enclosingType.getSource() != complexType.getSource()) {
+			return null;
+		}
+		return enclosingType;
+	}
+
+	/**
+	 * @return fully qualified name of every class in the order added to the
+	 *         cache
+	 */
+	public List<String> getParsedClasses() {
+		return parsedClasses;
+	}
+
+	/**
+	 * Record all the artifacts; the details of the primary one are shown on
+	 * the index page. The primary artifact is the first one of a documented
+	 * jar or directory itself, else the first documented one. The artifact of
+	 * a fat jar is at the root of the same and not in its nested jars.
+	 * 
+	 * @param classPath
+	 * @param artifacts
+	 *            in the order of the class path
+	 */
+	private void populateMavenDetails(ClassPath classPath, List<MavenArtifact> artifacts) {
+		RuntimeConfigurator config = RuntimeConfigurator.getConfig();
+		config.setArtifacts(artifacts);
+
+		Set<String> documented = new HashSet<>();
+		for (ClassSource source : classPath.getSources()) {
+			if (classPath.isDocumented(source)) {
+				documented.add(source.getPath());
+			}
+		}
+
+		MavenArtifact primary = null;
+		for (MavenArtifact artifact : artifacts) {
+			if (documented.contains(artifact.getSource())) {
+				if (artifact.getSource().equals(ClassPath.getContainer(artifact.getSource()))) {
+					primary = artifact;
+					break;
+				} else if (null == primary) {
+					primary = artifact;
+				}
+			}
+		}
+
+		if (null != primary) {
+			config.setGroup(primary.getGroup());
+			config.setArtifactId(primary.getArtifactId());
+			config.setVersion(primary.getVersion());
+			config.setJavaVersion(primary.getJavaVersion());
+			config.setDependenciesCount(primary.getDependenciesCount());
+		}
+
+		if (artifacts.size() > 1) {
+			Logger.info(artifacts.size() + " maven artifacts found on the class path");
 		}
 	}
 }
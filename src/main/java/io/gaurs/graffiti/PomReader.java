@@ -0,0 +1,199 @@
+package io.gaurs.graffiti;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.pmw.tinylog.Logger;
+
+import io.gaurs.graffiti.classpath.ClassSource;
+import io.gaurs.graffiti.classpath.SourceEntry;
+import io.gaurs.graffiti.model.MavenArtifact;
+
+/**
+ * Reads the maven details of every artifact of a class path entry. Maven
+ * writes a pom.properties and a pom.xml per artifact to
+ * META-INF/maven/&lt;group&gt;/&lt;artifact&gt;/ ; the coordinates are taken
+ * from the pom.properties if present. The pom.xml is read as a stream of
+ * elements without building a document, for the java version and the
+ * dependencies. Used by the parser threads concurrently.
+ *
+ * @author gaurs
+ *
+ */
+public class PomReader {
+
+	private static final String MAVEN = "META-INF/maven/";
+	private static final String POM = "pom.xml";
+	private static final String POM_PROPERTIES = "pom.properties";
+
+	// the elements read from a pom.xml
+	private static final String GROUP_ID = "project/groupId";
+	private static final String ARTIFACT_ID = "project/artifactId";
+	private static final String VERSION = "project/version";
+	private static final String PARENT_GROUP_ID = "project/parent/groupId";
+	private static final String PARENT_VERSION = "project/parent/version";
+	private static final String DEPENDENCY = "project/dependencies/dependency";
+
+	// the properties for the java version in the order of preference
+	private static final String[] JAVA_VERSIONS = { "project/properties/java.version",
+			"project/properties/maven.compiler.release", "project/properties/maven.compiler.source" };
+
+	/**
+	 * A factory is not guaranteed to be thread safe
+	 */
+	private static final ThreadLocal<XMLInputFactory> FACTORY = ThreadLocal.withInitial(() -> {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return factory;
+	});
+
+	/**
+	 * @param source
+	 * @param entries
+	 *            the files of the source
+	 * @return the artifacts of the given source in the order found
+	 */
+	public List<MavenArtifact> read(ClassSource source, List<SourceEntry> entries) {
+		// the pom.xml and pom.properties of an artifact share the directory;
+		// the ones elsewhere ex: test resources are not the descriptors of
+		// the source
+		Map<String, Map<String, String>> directories = new LinkedHashMap<>();
+		for (SourceEntry entry : entries) {
+			if (!entry.getName().startsWith(MAVEN)) {
+				continue;
+			}
+
+			String fileName = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+			if (POM.equals(fileName) || POM_PROPERTIES.equals(fileName)) {
+				String directory = entry.getName().substring(0, entry.getName().length() - fileName.length());
+				directories.computeIfAbsent(directory, key -> new HashMap<>()).put(fileName, entry.getName());
+			}
+		}
+
+		List<MavenArtifact> artifacts = new ArrayList<>();
+		for (Map<String, String> files : directories.values()) {
+			MavenArtifact artifact = new MavenArtifact(source.getPath());
+
+			if (files.containsKey(POM_PROPERTIES)) {
+				readProperties(source, files.get(POM_PROPERTIES), artifact);
+			}
+			if (files.containsKey(POM)) {
+				readPom(source, files.get(POM), artifact);
+			}
+
+			if (null != artifact.getArtifactId()) {
+				artifacts.add(artifact);
+			}
+		}
+		return artifacts;
+	}
+
+	private void readProperties(ClassSource source, String name, MavenArtifact artifact) {
+		try (InputStream stream = source.getInputStream(name)) {
+			Properties properties = new Properties();
+			properties.load(stream);
+
+			artifact.setGroup(properties.getProperty("groupId"));
+			artifact.setArtifactId(properties.getProperty("artifactId"));
+			artifact.setVersion(properties.getProperty("version"));
+		} catch (IOException | IllegalArgumentException exception) {
+			Logger.error("Exception occurred while reading " + source.getPath() + "!/" + name);
+		}
+	}
+
+	/**
+	 * Collect the elements of interest while the pom is read; the path of the
+	 * current element is kept as a string ex: project/parent/groupId
+	 *
+	 * @param source
+	 * @param name
+	 * @param artifact
+	 */
+	private void readPom(ClassSource source, String name, MavenArtifact artifact) {
+		Map<String, String> values = new HashMap<>();
+		int dependencies = 0;
+
+		XMLStreamReader reader = null;
+		try (InputStream stream = source.getInputStream(name)) {
+			reader = FACTORY.get().createXMLStreamReader(stream);
+
+			StringBuilder path = new StringBuilder();
+			while (reader.hasNext()) {
+				int event = reader.next();
+
+				if (XMLStreamConstants.START_ELEMENT == event) {
+					int parent = path.length();
+					path.append(0 == parent ? "" : "/").append(reader.getLocalName());
+
+					String element = path.toString();
+					if (DEPENDENCY.equals(element)) {
+						dependencies++;
+					} else if (isValue(element)) {
+						// reads till the end of the element
+						values.put(element, reader.getElementText().trim());
+						path.setLength(parent);
+					}
+				} else if (XMLStreamConstants.END_ELEMENT == event) {
+					path.setLength(Math.max(0, path.lastIndexOf("/")));
+				}
+			}
+		} catch (IOException | XMLStreamException exception) {
+			Logger.error("Exception occurred while parsing " + source.getPath() + "!/" + name);
+			return;
+		} finally {
+			close(reader);
+		}
+
+		// the coordinates are inherited from the parent if not specified
+		if (null == artifact.getArtifactId()) {
+			artifact.setGroup(values.getOrDefault(GROUP_ID, values.get(PARENT_GROUP_ID)));
+			artifact.setArtifactId(values.get(ARTIFACT_ID));
+			artifact.setVersion(values.getOrDefault(VERSION, values.get(PARENT_VERSION)));
+		}
+
+		for (String javaVersion : JAVA_VERSIONS) {
+			if (values.containsKey(javaVersion)) {
+				artifact.setJavaVersion(values.get(javaVersion));
+				break;
+			}
+		}
+
+		artifact.setDependenciesCount(dependencies);
+	}
+
+	private boolean isValue(String element) {
+		if (GROUP_ID.equals(element) || ARTIFACT_ID.equals(element) || VERSION.equals(element)
+				|| PARENT_GROUP_ID.equals(element) || PARENT_VERSION.equals(element)) {
+			return true;
+		}
+
+		for (String javaVersion : JAVA_VERSIONS) {
+			if (javaVersion.equals(element)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void close(XMLStreamReader reader) {
+		try {
+			if (null != reader) {
+				reader.close();
+			}
+		} catch (XMLStreamException exception) {
+			Logger.error("Exception occurred while closing the pom reader", exception);
+		}
+	}
+}
@@ -1,22 +1,33 @@
 package io.gaurs.graffiti;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import org.pmw.tinylog.Level;
 import org.pmw.tinylog.Logger;
 
+import io.gaurs.graffiti.classpath.ClassPath;
 import io.gaurs.graffiti.config.LogConfigurator;
+import io.gaurs.graffiti.config.Renderer;
 import io.gaurs.graffiti.config.RuntimeConfigurator;
 import io.gaurs.graffiti.model.ComplexType;
 import io.gaurs.graffiti.model.ComplexTypeCache;
+import io.gaurs.graffiti.model.ModelSnapshot;
 import io.gaurs.graffiti.paint.ClassFileGenerator;
+import io.gaurs.graffiti.paint.ComplexTypeGenerator;
 import io.gaurs.graffiti.paint.DotFileGenerator;
 import io.gaurs.graffiti.paint.FileGenerator;
 import io.gaurs.graffiti.paint.HtmlFileGenerator;
 import io.gaurs.graffiti.paint.ImageGenerator;
 import io.gaurs.graffiti.paint.IndexFileGenerator;
+import io.gaurs.graffiti.paint.PackageFileGenerator;
+import io.gaurs.graffiti.paint.Pipeline;
+import io.gaurs.graffiti.paint.SvgImageGenerator;
 
 /**
  * @author gaurs
@@ -35,22 +46,29 @@ public class Runner {
 	 */
 	private final Parser parser = new Parser();
 
+	/**
+	 * Used to find the classes modified since the previous run
+	 */
+	private final IncrementalBuild incrementalBuild = new IncrementalBuild(structureAnalyser);
+
 	/**
 	 * Used for generating dot files. The output of this class is fed to
 	 * graphviz api to generate image files
 	 */
-	private final FileGenerator dotFileGenerator = new DotFileGenerator();
+	private final ComplexTypeGenerator dotFileGenerator = new DotFileGenerator();
 
 	/**
 	 * Used to call graphviz api with the dot files to generate corresponding
-	 * image files.
+	 * image files; or to render the svg images in process with the built in
+	 * renderer
 	 */
-	private final FileGenerator imageGenerator = new ImageGenerator();
+	private final ComplexTypeGenerator imageGenerator = Renderer.JAVA == RuntimeConfigurator.getConfig().getRenderer()
+			? new SvgImageGenerator() : new ImageGenerator();
 
 	/**
 	 * Used to generate .html page corresponding to every .class file
 	 */
-	private final FileGenerator complexTypeGenerator = new ClassFileGenerator();
+	private final ComplexTypeGenerator complexTypeGenerator = new ClassFileGenerator();
 
 	/**
 	 * Used to generate index page containing an overview of the jar files. It
@@ -59,6 +77,12 @@ public class Runner {
 	 */
 	private final FileGenerator indexFileGenerator = new IndexFileGenerator();
 
+	/**
+	 * Used to generate a page and a diagram for every package along with an
+	 * overview of all the packages
+	 */
+	private final FileGenerator packageFileGenerator = new PackageFileGenerator();
+
 	
 	public static void main(String[] args) {
 		// Configure the logging
@@ -105,25 +129,151 @@ public class Runner {
 	private void run() {
 		Logger.info("Initializing the jar parsing for : " + RuntimeConfigurator.getConfig().getJarFile());
 		
-		//fetch the jar file name
-		String jarFileName = RuntimeConfigurator.getConfig().getJarFile();
+		//open the jar files and class directories
+		ClassPath classPath = ClassPath.open(RuntimeConfigurator.getConfig().getJarFile(),
+				RuntimeConfigurator.getConfig().getPages());
 
-		//start the parsing
-		parser.parse(jarFileName);
-		
-		//start the analysis
-		structureAnalyser.analyse(jarFileName);
+		//only the modified classes are rendered by an incremental run
+		Collection<ComplexType> modified = null;
+		try {
+			modified = analyse(classPath);
+		} finally {
+			//the class files are not read any further
+			classPath.close();
+		}
 
 		if (Level.DEBUG == Logger.getLevel()) {
 			logClassStructure();
 		}
 
-		generateDotFiles();
-		copyStyleSheets();
-		copy404Page();
-		generateImageFiles();
-		generateHtmlPageForEachClass();
+		//classes whose outputs could not be generated in full
+		Set<String> incomplete = null;
+		if (null != modified) {
+			// the dot directory holds the files of the previous run as well;
+			// hence the classes are run through the pipeline
+			copyStyleSheets();
+			copy404Page();
+			incomplete = runPipeline(modified);
+		} else if (RuntimeConfigurator.getConfig().isPipeline()) {
+			copyStyleSheets();
+			copy404Page();
+			runPipeline(ComplexTypeCache.getComplexTypeCache().getDocumentedTypes());
+		} else {
+			generateDotFiles();
+			copyStyleSheets();
+			copy404Page();
+			generateImageFiles();
+			generateHtmlPageForEachClass();
+		}
+		if (RuntimeConfigurator.getConfig().isPackageDiagrams()) {
+			generatePackagePages();
+		}
 		generateIndexPage();
+
+		if (null != modified) {
+			incrementalBuild.saveManifest(incomplete);
+		}
+	}
+
+	/**
+	 * Parse and analyse all the jar files and class directories into the
+	 * ComplexTypeCache; or restore the same from a snapshot
+	 * 
+	 * @param classPath
+	 * @return the classes modified since the previous run; null if the run is
+	 *         not incremental
+	 */
+	private Collection<ComplexType> analyse(ClassPath classPath) {
+		//restore the model analysed by an earlier run on the same jars
+		String snapshotKey = getSnapshotKey(classPath);
+		boolean restored = null != snapshotKey && restoreSnapshot(snapshotKey, classPath);
+
+		//start the parsing
+		if (!restored) {
+			parser.parse(classPath);
+		}
+		
+		//start the analysis
+		Collection<ComplexType> modified = null;
+		if (RuntimeConfigurator.getConfig().isIncremental()) {
+			modified = incrementalBuild.analyse(restored);
+		} else if (!restored) {
+			structureAnalyser.analyse();
+		}
+
+		//only a complete model is of use to the later runs
+		if (null != snapshotKey && !restored
+				&& (null == modified || incrementalBuild.isFullyAnalysed())) {
+			saveSnapshot(snapshotKey, classPath);
+		}
+		return modified;
+	}
+
+	/**
+	 * Generate the dot file, image and html page class by class with the
+	 * three stages running concurrently
+	 * 
+	 * @param complexTypes
+	 * @return the classes whose outputs could not be generated in full
+	 */
+	private Set<String> runPipeline(Collection<ComplexType> complexTypes) {
+		Logger.info("Generating dot files, images and html pages for " + complexTypes.size() + " classes");
+
+		int threads = RuntimeConfigurator.getConfig().getAnalysisThreads();
+		Pipeline pipeline = new Pipeline();
+		if (isDotSourceRequired()) {
+			pipeline.addStage(dotFileGenerator, threads);
+		}
+		pipeline.addStage(imageGenerator, RuntimeConfigurator.getConfig().getRenderThreads())
+				.addStage(complexTypeGenerator, threads).paint(complexTypes);
+		return pipeline.getIncomplete();
+	}
+
+	/**
+	 * @param classPath
+	 * @return the key of the snapshot of the given jars; null if the snapshot
+	 *         cache is not used
+	 */
+	private String getSnapshotKey(ClassPath classPath) {
+		if (null == RuntimeConfigurator.getConfig().getSnapshotCacheLocation()) {
+			return null;
+		}
+
+		try {
+			return ModelSnapshot.getKey(classPath);
+		} catch (IOException exception) {
+			Logger.error("Exception occurred while reading the jar files : "
+					+ RuntimeConfigurator.getConfig().getJarFile(), exception);
+			return null;
+		}
+	}
+
+	private boolean restoreSnapshot(String snapshotKey, ClassPath classPath) {
+		File snapshot = getSnapshotFile(snapshotKey);
+		try {
+			if (ModelSnapshot.load(snapshot, classPath)) {
+				Logger.info("Restored " + ComplexTypeCache.getComplexTypeCache().size() + " classes from : "
+						+ snapshot.getPath());
+				return true;
+			}
+		} catch (IOException exception) {
+			Logger.error("Exception occurred while restoring the snapshot; analysing the jar again", exception);
+		}
+		return false;
+	}
+
+	private void saveSnapshot(String snapshotKey, ClassPath classPath) {
+		File snapshot = getSnapshotFile(snapshotKey);
+		try {
+			ModelSnapshot.save(snapshot, parser.getParsedClasses(), classPath);
+		} catch (IOException exception) {
+			Logger.error("Exception occurred while writing the snapshot : " + snapshot.getPath(), exception);
+		}
+	}
+
+	private File getSnapshotFile(String snapshotKey) {
+		return new File(RuntimeConfigurator.getConfig().getSnapshotCacheLocation() + File.separator + snapshotKey
+				+ ".snapshot");
 	}
 
 	private void generateIndexPage() {
@@ -131,6 +281,11 @@ public class Runner {
 		indexFileGenerator.paint();
 	}
 
+	private void generatePackagePages() {
+		Logger.info("Generating package pages at " + RuntimeConfigurator.getConfig().getOutputLocation());
+		packageFileGenerator.paint();
+	}
+
 	private void copy404Page() {
 		Logger.info("Copying 404 page to " + RuntimeConfigurator.getConfig().getOutputLocation());
 		HtmlFileGenerator.copy404Page();
@@ -151,8 +306,23 @@ public class Runner {
 		HtmlFileGenerator.copyStyleSheets();
 	}
 
+	/**
+	 * The built in renderer does not use the dot source; the same is generated
+	 * only if it is written to the disk
+	 * 
+	 * @return
+	 */
+	private boolean isDotSourceRequired() {
+		return Renderer.JAVA != RuntimeConfigurator.getConfig().getRenderer()
+				|| RuntimeConfigurator.getConfig().isIntermediateFiles();
+	}
+
 	private void generateDotFiles() {
-		Logger.info("Generating " + ComplexTypeCache.getComplexTypeCache().size() + " dot files");
+		if (!isDotSourceRequired()) {
+			return;
+		}
+
+		Logger.info("Generating " + ComplexTypeCache.getComplexTypeCache().getDocumentedTypes().size() + " dot files");
 		dotFileGenerator.paint();
 	}
 
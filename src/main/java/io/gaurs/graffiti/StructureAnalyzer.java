@@ -1,23 +1,27 @@
 package io.gaurs.graffiti;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLClassLoader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.pmw.tinylog.Logger;
 
+import io.gaurs.graffiti.bytecode.ClassDetails;
+import io.gaurs.graffiti.bytecode.ClassFileReader;
+import io.gaurs.graffiti.bytecode.MemberDetails;
+import io.gaurs.graffiti.bytecode.MethodDescriptor;
+import io.gaurs.graffiti.bytecode.SignatureParser;
 import io.gaurs.graffiti.config.RuntimeConfigurator;
 import io.gaurs.graffiti.model.ComplexType;
 import io.gaurs.graffiti.model.ComplexTypeCache;
 import io.gaurs.graffiti.model.ExceptionalScenarios;
+import io.gaurs.graffiti.model.FieldTable;
+import io.gaurs.graffiti.model.SymbolTable;
 import io.gaurs.graffiti.paint.ClassFileGenerator;
 
 /**
@@ -35,91 +39,206 @@ public class StructureAnalyzer {
 
 	private static final ExceptionalScenarios exceptionalScenarios = ExceptionalScenarios.getInstance();
 
+	private static final String CONSTRUCTOR = "<init>";
+	private static final String STATIC_INITIALIZER = "<clinit>";
+
+	/**
+	 * Used to read the fields/methods of a class from its .class file
+	 */
+	private final ClassFileReader classFileReader = new ClassFileReader(SymbolTable.getSymbolTable()::intern);
+
+	/**
+	 * Shared names and placeholder types
+	 */
+	private final SymbolTable symbolTable = SymbolTable.getSymbolTable();
+
 	/**
-	 * @param jarFileName
+	 * Read the structure of every class in the ComplexTypeCache straight from
+	 * the corresponding .class file of its class path entry. The classes are
+	 * never loaded, hence the types referred to by a class need not be present
+	 * on the class path.
+	 * 
+	 * The classes are split across a fork/join pool of
+	 * RuntimeConfigurator.getAnalysisThreads() workers. Classes that can not
+	 * be read are removed from the cache only once all the workers are done so
+	 * that the output does not depend upon the order of execution.
+	 * 
 	 * @return
 	 */
-	public void analyse(String jarFileName) {
+	public void analyse() {
+		analyse(ComplexTypeCache.getComplexTypeCache().values());
+	}
+
+	/**
+	 * Analyse only the given classes of the ComplexTypeCache; the rest of the
+	 * classes are left as populated by the parser. The classes excluded by the
+	 * ClassFilter are never analysed.
+	 * 
+	 * @param toAnalyse
+	 */
+	public void analyse(Collection<ComplexType> toAnalyse) {
+
+		// Get all the entries that we need to read from the class path; The
+		// list was prepared as part of the parsing process in which for
+		// every .class file a new complex type was created. The
+		// ComplexTypeCache holds all those instances with the key being the
+		// fully qualified name an the value being the ComplexTypeInstance
+		List<ComplexType> complexTypes = new ArrayList<>(toAnalyse.size());
+		for (ComplexType complexType : toAnalyse) {
+			if (!complexType.isExcluded()) {
+				complexTypes.add(complexType);
+			}
+		}
 
-		try {
-			Logger.info("Analysing jar file " + jarFileName);
-
-			// load the jar file
-			URL[] urls = { new URL("jar:file:" + jarFileName + "!/") };
-
-			// get the class loader corresponding to the jar file
-			URLClassLoader classLoader = URLClassLoader.newInstance(urls);
-
-			// Get all the entries that we need to load from the jar file; The
-			// list was prepared as part of the parsing process in which for
-			// every .class file a new complex type was created. The
-			// ComplexTypeCache holds all those instances with the key being the
-			// fully qualified name an the value being the ComplexTypeInstance
-			Iterator<Map.Entry<String, ComplexType>> cacheIterator = ComplexTypeCache.getComplexTypeCache().entrySet()
-					.iterator();
-
-			// For every entry in the cache
-			while (cacheIterator.hasNext()) {
-
-				// Fetch the entry
-				ComplexType complexType = cacheIterator.next().getValue();
-				Logger.debug("Loading class : " + complexType.getFullyQualifiedName());
-
-				try {
-
-					// load the class using the classloader created for this jar
-					Class<?> loadedClass = classLoader.loadClass(complexType.getFullyQualifiedName());
-
-					// populate various counts like :
-					// classCount/interfaceCount/AbstractCount etc
-					populateCounts(loadedClass);
-
-					// get the list of declared fields
-					Field[] fields = loadedClass.getDeclaredFields();
-
-					// get the list of declared methods
-					Method[] methods = loadedClass.getDeclaredMethods();
-
-					if (null != fields && fields.length >= 0) {
-						Logger.debug(
-								"Class " + complexType.getFullyQualifiedName() + " has " + fields.length + " fields");
-						// populate the fields data
-						populateFieldsData(fields, complexType);
-					}
-
-					if (null != methods && methods.length >= 0) {
-						Logger.debug(
-								"Class " + complexType.getFullyQualifiedName() + " has " + methods.length + " methods");
-						// populate the methods data
-						populateMethodsData(methods, complexType);
-					}
-				} catch (Throwable exception) {
-					cacheIterator.remove();
-					if (exception.getCause() instanceof ClassNotFoundException) {
-						Logger.debug(
-								"Exception type 1 occurred while parsing : " + complexType.getFullyQualifiedName());
-
-						String exceptionalClassName = exception.getMessage();
-						exceptionalClassName = exceptionalClassName.replaceAll("/", ".");
-
-						exceptionalScenarios.createException(complexType.getName(),
-								getPackageName(complexType.getFullyQualifiedName()),
-								"The class " + exceptionalClassName
-										+ " in the hierarchy is outside the current jar");
-					} else {
-						Logger.debug(
-								"Exception type 2 occurred while parsing : " + complexType.getFullyQualifiedName());
-					}
+		// failure reason for every complex type that could not be read;
+		// indexed same as complexTypes
+		String[] failures = new String[complexTypes.size()];
+
+		int threads = RuntimeConfigurator.getConfig().getAnalysisThreads();
+		if (threads > 1) {
+			Logger.info("Analysing " + complexTypes.size() + " classes using " + threads + " threads");
 
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			try {
+				pool.invoke(new AnalysisTask(complexTypes, failures, 0, complexTypes.size()));
+			} finally {
+				pool.shutdown();
+			}
+		} else {
+			analyse(complexTypes, failures, 0, complexTypes.size());
+		}
+
+		// For every class that could not be read
+		for (int index = 0; index < failures.length; index++) {
+			if (null != failures[index]) {
+				ComplexType complexType = complexTypes.get(index);
+				ComplexTypeCache.getComplexTypeCache().remove(complexType.getFullyQualifiedName());
+
+				// nor is the same shown on the page of its enclosing class
+				if (null != complexType.getEnclosingType()) {
+					complexType.getEnclosingType().removeNestedType(complexType);
+				}
+
+				// the index page lists the documented classes only
+				if (!complexType.isDocumented()) {
+					Logger.info("The class file could not be read : " + complexType.getFullyQualifiedName());
 					continue;
 				}
+
+				exceptionalScenarios.createException(complexType.getName(),
+						getPackageName(complexType.getFullyQualifiedName()),
+						"The class file could not be read : " + failures[index]);
+			}
+		}
+
+		Logger.info("Analysis complete for " + complexTypes.size() + " classes");
+	}
+
+	/**
+	 * Analyse the complex types in the range [from, to)
+	 * 
+	 * @param complexTypes
+	 * @param failures
+	 * @param from
+	 * @param to
+	 */
+	private void analyse(List<ComplexType> complexTypes, String[] failures, int from, int to) {
+		for (int index = from; index < to; index++) {
+
+			// Fetch the entry
+			ComplexType complexType = complexTypes.get(index);
+			Logger.debug("Reading class : " + complexType.getFullyQualifiedName());
+
+			try {
+
+				// read the class file from the corresponding class path entry
+				ClassDetails classDetails = readClass(complexType);
+
+				// populate various counts like :
+				// classCount/interfaceCount/AbstractCount etc
+				populateCounts(classDetails, complexType);
+
+				// get the list of declared fields
+				List<MemberDetails> fields = classDetails.getFields();
+
+				// get the list of declared methods
+				List<MemberDetails> methods = classDetails.getMethods();
+
+				Logger.debug("Class " + complexType.getFullyQualifiedName() + " has " + fields.size() + " fields");
+				// populate the fields data
+				populateFieldsData(fields, complexType);
+
+				Logger.debug("Class " + complexType.getFullyQualifiedName() + " has " + methods.size() + " methods");
+				// populate the methods data
+				populateMethodsData(methods, complexType);
+
+			} catch (IOException | RuntimeException exception) {
+				// The class file itself is malformed
+				Logger.debug("Exception occurred while reading : " + complexType.getFullyQualifiedName());
+				failures[index] = String.valueOf(exception.getMessage());
 			}
+		}
+	}
+
+	/**
+	 * Splits the list of complex types into halves till the same is small
+	 * enough to be analysed by a single worker.
+	 */
+	private class AnalysisTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 4412853036517294612L;
 
-			Logger.info("Analysis complete for " + jarFileName);
-		} catch (MalformedURLException exception) {
-			Logger.error("Exception occurred while loading the classes from the jar file", exception);
+		private static final int THRESHOLD = 64;
+
+		private final List<ComplexType> complexTypes;
+		private final String[] failures;
+		private final int from;
+		private final int to;
+
+		AnalysisTask(List<ComplexType> complexTypes, String[] failures, int from, int to) {
+			this.complexTypes = complexTypes;
+			this.failures = failures;
+			this.from = from;
+			this.to = to;
 		}
 
+		@Override
+		protected void compute() {
+			if (to - from <= THRESHOLD) {
+				analyse(complexTypes, failures, from, to);
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new AnalysisTask(complexTypes, failures, from, middle),
+						new AnalysisTask(complexTypes, failures, middle, to));
+			}
+		}
+	}
+
+	private ClassDetails readClass(ComplexType complexType) throws IOException {
+		String fullyQualifiedName = complexType.getFullyQualifiedName();
+
+		InputStream stream = null == complexType.getSource() ? null
+				: complexType.getSource().getInputStream(fullyQualifiedName.replace('.', '/') + ".class");
+		if (null == stream) {
+			throw new IOException("No class file found for " + fullyQualifiedName);
+		}
+
+		ClassDetails classDetails;
+		try {
+			classDetails = classFileReader.read(stream);
+		} finally {
+			stream.close();
+		}
+
+		// a class loader rejects the same as well
+		if ((classDetails.getAccessFlags() & ClassFileReader.ACC_MODULE) != 0) {
+			throw new IOException("Not a class but a module descriptor : " + fullyQualifiedName);
+		}
+		if (!fullyQualifiedName.equals(classDetails.getName())) {
+			throw new IOException("The class file declares " + classDetails.getName() + " instead of "
+					+ fullyQualifiedName);
+		}
+		return classDetails;
 	}
 
 	private String getPackageName(String fullyQualifiedName) {
@@ -129,29 +248,45 @@ public class StructureAnalyzer {
 
 	/**
 	 * Depenending upon the type of current entry, increment the corresponding
-	 * count
+	 * count; the statistics are those of the documented classes
 	 * 
-	 * @param loadedClass
+	 * @param classDetails
+	 * @param complexType
 	 */
-	private void populateCounts(Class<?> loadedClass) {
-		if (Modifier.isInterface(loadedClass.getModifiers())) {
-			RuntimeConfigurator.getConfig().setInterfaceCount(RuntimeConfigurator.getConfig().getInterfaceCount() + 1);
-		} else if (Modifier.isAbstract(loadedClass.getModifiers())) {
-			RuntimeConfigurator.getConfig()
-					.setAbstractClassCount(RuntimeConfigurator.getConfig().getAbstractClassCount() + 1);
+	private void populateCounts(ClassDetails classDetails, ComplexType complexType) {
+		complexType.setInterface(classDetails.isInterface());
+		complexType.setAbstract(classDetails.isAbstract());
+
+		if (!complexType.isDocumented()) {
+			return;
+		} else if (classDetails.isInterface()) {
+			RuntimeConfigurator.getConfig().incrementInterfaceCount();
+		} else if (classDetails.isAbstract()) {
+			RuntimeConfigurator.getConfig().incrementAbstractClassCount();
 		} else {
-			RuntimeConfigurator.getConfig().setClassesCount(RuntimeConfigurator.getConfig().getClassesCount() + 1);
+			RuntimeConfigurator.getConfig().incrementClassesCount();
 		}
 	}
 
-	private void populateMethodsData(Method[] methods, ComplexType complexType) {
-		List<Method> methodDetails = new ArrayList<>();
+	private void populateMethodsData(List<MemberDetails> methods, ComplexType complexType) {
+		List<MethodDescriptor> methodDetails = new ArrayList<>(methods.size());
 		// For every method
-		for (Method method : methods) {
+		for (MemberDetails method : methods) {
+
+			// Constructors and static initializers are not reported as
+			// methods
+			if (CONSTRUCTOR.equals(method.getName()) || STATIC_INITIALIZER.equals(method.getName())) {
+				continue;
+			}
 
-			// Add the same to the list of methods which will be used in
-			// ClassFileGenerator.populateMethodsList()
-			methodDetails.add(method);
+			// Decode the types once and add the same to the list of methods
+			// which will be used in ClassFileGenerator.writeMethodsList()
+			MethodDescriptor methodDescriptor = MethodDescriptor.decode(method, symbolTable::intern);
+			if (methodDescriptor.isMalformed()) {
+				Logger.debug("Malformed signature of method " + method.getName() + " in "
+						+ complexType.getFullyQualifiedName() + " : " + method.getGenericDescriptor());
+			}
+			methodDetails.add(methodDescriptor);
 		}
 
 		complexType.setMethodDetails(methodDetails);
@@ -170,21 +305,30 @@ public class StructureAnalyzer {
 	 * @param fields
 	 * @param complexType
 	 */
-	private void populateFieldsData(Field[] fields, ComplexType complexType) {
+	private void populateFieldsData(List<MemberDetails> fields, ComplexType complexType) {
 		HashMap<String, ComplexType> attributes = new HashMap<>();
 
 		// for every field
-		for (Field field : fields) {
-			if (!field.getType().isPrimitive()) {
+		for (MemberDetails field : fields) {
+			if (!isPrimitive(field.getDescriptor())) {
 				populateNonPrimitiveFieldsData(field, attributes);
 			} else {
 				populatePrimitiveFieldsData(field, attributes);
 			}
-			complexType.setAttributes(attributes);
 		}
+
+		// the fields are kept in a compact table once collected; the order
+		// stays the same as that of the hash map
+		if (!fields.isEmpty()) {
+			complexType.setAttributes(new FieldTable(attributes));
+		}
+	}
+
+	private boolean isPrimitive(String descriptor) {
+		return descriptor.charAt(0) != 'L' && descriptor.charAt(0) != '[';
 	}
 
-	private void populatePrimitiveFieldsData(Field field, HashMap<String, ComplexType> attributes) {
+	private void populatePrimitiveFieldsData(MemberDetails field, HashMap<String, ComplexType> attributes) {
 		// If it is a primitive type field, the same will not be available in
 		// the ComplexTypeCache as it is populated ONLY with ComplexType
 		// instances for every .class file found in the jar
@@ -194,11 +338,9 @@ public class StructureAnalyzer {
 		// displays the classes only and not class specific details
 
 		// The ClassFileGenerator -> addAttributeRow() is handeled accordingly
-		// with a 404 page
-		ComplexType complexType = new ComplexType();
-		complexType.setPrimitive(true);
-		complexType.setName(field.getType().getName());
-		complexType.setFullyQualifiedName(field.getType().getName());
+		// with a 404 page; all the fields of a primitive type share the same
+		// placeholder
+		ComplexType complexType = symbolTable.getPrimitive(SignatureParser.typeName(field.getDescriptor()));
 
 		attributes.put(field.getName(), complexType);
 	}
@@ -207,46 +349,43 @@ public class StructureAnalyzer {
 	 * @param field
 	 * @param attributes
 	 */
-	private void populateNonPrimitiveFieldsData(Field field, HashMap<String, ComplexType> attributes) {
+	private void populateNonPrimitiveFieldsData(MemberDetails field, HashMap<String, ComplexType> attributes) {
 		// Fetch the ComplexType corresponding to the field type :
 		// 1. Get the fieldTyp -> name
 		// 2. Query the complexTypeCache with the fieldTypeName; The same can be
 		// unavailable in two scenarios :
-		// 2.a Field is of a type which is present in some other jar
+		// 2.a Field is of a type which is not present on the class path
 		// 2.b Field is a generic class type
 		// 2.c Field is an array of some class which may or may not be present
 		// in the jar file
 
-		ComplexType complexType = ComplexTypeCache.getComplexTypeCache().get(field.getType().getName());
+		String typeName = SignatureParser.erasure(field.getDescriptor());
+		ComplexType complexType = ComplexTypeCache.getComplexTypeCache().get(typeName);
 
 		// TODO Better handling of generic types; The same must not be
 		// added to ComplexTypeCache as no .html file is to be generated
 		// corresponding to (arrays or generic classes)
 
 		// As of now both IndexFileGenerator -> populateRow and
-		// ClassFileGenerator -> addAttributeRow() are handled accordingly
+		// ClassFileGenerator -> addAttributeRow() are handled accordingly.
+		// The placeholders are shared by all the fields of the same type
 		if (null == complexType) {
-			complexType = generateComplexType(field.getType().getName());
 
 			// Handles the scenario when the field is an array
-			if (field.getType().isArray()) {
-				complexType.setArray(true);
-				complexType.setName(field.getType().getSimpleName());
-				complexType.setFullyQualifiedName(field.getType().getSimpleName());
+			if (field.getDescriptor().charAt(0) == '[') {
+				complexType = symbolTable.getArray(getSimpleName(SignatureParser.typeName(field.getDescriptor())));
 			} else {
 
 				// Handles the scenario when the field is a generic field or
-				// anything outside the current jar(becuase in both the cases a
+				// anything outside the class path(becuase in both the cases a
 				// 404 needs to be published as the same must not have been
 				// initialized during the parsing phase)
-				complexType.setGeneric(true);
 
-				String genericName = field.getGenericType().toString();
-				// class with a space ex: class java.lang.String
-				genericName = genericName.replaceAll("class ", "");
+				// ex: java.util.List<java.lang.String>
+				String genericName = SignatureParser.typeName(field.getGenericDescriptor());
 				genericName = genericName.replaceAll("<", "&lt;");
 				genericName = genericName.replaceAll(">", "&gt;");
-				complexType.setFullyQualifiedName(genericName);
+				complexType = symbolTable.getExternal(typeName, genericName);
 			}
 		}
 
@@ -255,13 +394,14 @@ public class StructureAnalyzer {
 
 	}
 
-	private ComplexType generateComplexType(String name) {
-		ComplexType complexType = new ComplexType();
-
-		complexType.setAttributes(new HashMap<>());
-		complexType.setMethodDetails(new ArrayList<>());
-
-		complexType.setName(name);
-		return complexType;
+	/**
+	 * ex: java.lang.String[] -> String[]; java.util.Map$Entry[] -> Entry[]
+	 * 
+	 * @param typeName
+	 * @return
+	 */
+	private String getSimpleName(String typeName) {
+		String simpleName = typeName.substring(typeName.lastIndexOf('.') + 1);
+		return simpleName.substring(simpleName.lastIndexOf('$') + 1);
 	}
 }
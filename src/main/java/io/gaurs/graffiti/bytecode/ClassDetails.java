@@ -0,0 +1,101 @@
+package io.gaurs.graffiti.bytecode;
+
+import java.util.List;
+
+/**
+ * The structure of a single .class file as read from its constant pool by
+ * {@link ClassFileReader}. Class names are in binary form with '.' as the
+ * package separator ex: org.pmw.tinylog.Configuration$Builder
+ *
+ * @author gaurs
+ *
+ */
+public class ClassDetails {
+
+	private final int accessFlags;
+	private final String name;
+	private final String superName;
+	private final List<String> interfaces;
+	private final String signature;
+	private final List<MemberDetails> fields;
+	private final List<MemberDetails> methods;
+	private final boolean nested;
+	private final boolean anonymousOrLocal;
+
+	public ClassDetails(int accessFlags, String name, String superName, List<String> interfaces, String signature,
+			List<MemberDetails> fields, List<MemberDetails> methods, boolean nested, boolean anonymousOrLocal) {
+		this.accessFlags = accessFlags;
+		this.name = name;
+		this.superName = superName;
+		this.interfaces = interfaces;
+		this.signature = signature;
+		this.fields = fields;
+		this.methods = methods;
+		this.nested = nested;
+		this.anonymousOrLocal = anonymousOrLocal;
+	}
+
+	public int getAccessFlags() {
+		return accessFlags;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the super class name; null for java.lang.Object and module-info
+	 */
+	public String getSuperName() {
+		return superName;
+	}
+
+	public List<String> getInterfaces() {
+		return interfaces;
+	}
+
+	/**
+	 * @return the generic class signature if present; null otherwise
+	 */
+	public String getSignature() {
+		return signature;
+	}
+
+	public List<MemberDetails> getFields() {
+		return fields;
+	}
+
+	public List<MemberDetails> getMethods() {
+		return methods;
+	}
+
+	public boolean isInterface() {
+		return (accessFlags & ClassFileReader.ACC_INTERFACE) != 0;
+	}
+
+	public boolean isAbstract() {
+		return (accessFlags & ClassFileReader.ACC_ABSTRACT) != 0;
+	}
+
+	public boolean isSynthetic() {
+		return (accessFlags & ClassFileReader.ACC_SYNTHETIC) != 0;
+	}
+
+	/**
+	 * @return true if the InnerClasses attribute of the class lists the same
+	 *         ex: Foo$Bar, Foo$1; false for a top level class even if named
+	 *         alike ex: Foo$
+	 */
+	public boolean isNested() {
+		return nested;
+	}
+
+	/**
+	 * @return true if the InnerClasses attribute of the class declares it or
+	 *         a class enclosing it outside of any class ex: Foo$1,
+	 *         Foo$1Local, Foo$1$Bar
+	 */
+	public boolean isAnonymousOrLocal() {
+		return anonymousOrLocal;
+	}
+}
@@ -0,0 +1,322 @@
+package io.gaurs.graffiti.bytecode;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Reads the structure of a .class file straight from its constant pool as per
+ * chapter 4 of the JVM specification. Unlike a class loader nothing is linked
+ * or verified, so the super types and field types of the class need not be
+ * present on the class path.
+ *
+ * <pre>
+ * ClassFile {
+ *     u4 magic; u2 minor_version; u2 major_version;
+ *     u2 constant_pool_count; cp_info constant_pool[constant_pool_count-1];
+ *     u2 access_flags; u2 this_class; u2 super_class;
+ *     u2 interfaces_count; u2 interfaces[interfaces_count];
+ *     u2 fields_count; field_info fields[fields_count];
+ *     u2 methods_count; method_info methods[methods_count];
+ *     u2 attributes_count; attribute_info attributes[attributes_count];
+ * }
+ * </pre>
+ *
+ * @author gaurs
+ *
+ */
+public class ClassFileReader {
+
+	public static final int ACC_PUBLIC = 0x0001;
+	public static final int ACC_INTERFACE = 0x0200;
+	public static final int ACC_ABSTRACT = 0x0400;
+	public static final int ACC_SYNTHETIC = 0x1000;
+	public static final int ACC_MODULE = 0x8000;
+
+	private static final int MAGIC = 0xCAFEBABE;
+
+	// constant pool tags
+	private static final int CONSTANT_UTF8 = 1;
+	private static final int CONSTANT_INTEGER = 3;
+	private static final int CONSTANT_FLOAT = 4;
+	private static final int CONSTANT_LONG = 5;
+	private static final int CONSTANT_DOUBLE = 6;
+	private static final int CONSTANT_CLASS = 7;
+	private static final int CONSTANT_STRING = 8;
+	private static final int CONSTANT_FIELDREF = 9;
+	private static final int CONSTANT_METHODREF = 10;
+	private static final int CONSTANT_INTERFACE_METHODREF = 11;
+	private static final int CONSTANT_NAME_AND_TYPE = 12;
+	private static final int CONSTANT_METHOD_HANDLE = 15;
+	private static final int CONSTANT_METHOD_TYPE = 16;
+	private static final int CONSTANT_DYNAMIC = 17;
+	private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+	private static final int CONSTANT_MODULE = 19;
+	private static final int CONSTANT_PACKAGE = 20;
+
+	private static final String SIGNATURE = "Signature";
+	private static final String INNER_CLASSES = "InnerClasses";
+
+	/**
+	 * Applied to the names, descriptors and signatures kept beyond the
+	 * reading of a class; ex: to share the same instance across classes
+	 */
+	private final UnaryOperator<String> symbols;
+
+	public ClassFileReader() {
+		this(UnaryOperator.identity());
+	}
+
+	public ClassFileReader(UnaryOperator<String> symbols) {
+		this.symbols = symbols;
+	}
+
+	/**
+	 * Read the class file available on the given stream. The stream is not
+	 * closed by this method.
+	 *
+	 * @param stream
+	 * @return the details of the class
+	 * @throws IOException
+	 *             if the stream can not be read or is not a valid class file
+	 */
+	public ClassDetails read(InputStream stream) throws IOException {
+		DataInputStream input = new DataInputStream(new BufferedInputStream(stream));
+
+		// The constant pool; only the utf8 and class entries are of interest
+		// as everything else is referred to by index only
+		int poolCount = readHeader(input);
+		String[] utf8 = new String[poolCount];
+		int[] classNameIndex = new int[poolCount];
+		readConstantPool(input, poolCount, utf8, classNameIndex);
+
+		int accessFlags = input.readUnsignedShort();
+		String name = className(input.readUnsignedShort(), utf8, classNameIndex);
+		String superName = className(input.readUnsignedShort(), utf8, classNameIndex);
+
+		int interfaceCount = input.readUnsignedShort();
+		List<String> interfaces = new ArrayList<>(interfaceCount);
+		for (int index = 0; index < interfaceCount; index++) {
+			interfaces.add(className(input.readUnsignedShort(), utf8, classNameIndex));
+		}
+
+		List<MemberDetails> fields = readMembers(input, utf8);
+		List<MemberDetails> methods = readMembers(input, utf8);
+
+		// the class attributes; the same are not shared with the members
+		String signature = null;
+		boolean nested = false;
+		boolean anonymousOrLocal = false;
+		int attributeCount = input.readUnsignedShort();
+		for (int index = 0; index < attributeCount; index++) {
+			String attributeName = utf8(input.readUnsignedShort(), utf8);
+			int length = input.readInt();
+
+			if (SIGNATURE.equals(attributeName) && length == 2) {
+				signature = utf8(input.readUnsignedShort(), utf8);
+			} else if (INNER_CLASSES.equals(attributeName)) {
+				// only an anonymous or a local class has no outer class; the
+				// classes enclosing the class are listed as well
+				int classCount = input.readUnsignedShort();
+				for (int entry = 0; entry < classCount; entry++) {
+					String innerName = className(input.readUnsignedShort(), utf8, classNameIndex);
+					int outerClass = input.readUnsignedShort();
+					skipFully(input, 4);
+
+					nested |= name.equals(innerName);
+					anonymousOrLocal |= outerClass == 0
+							&& (name.equals(innerName) || name.startsWith(innerName + "$"));
+				}
+			} else {
+				skipFully(input, length);
+			}
+		}
+
+		return new ClassDetails(accessFlags, name, superName, Collections.unmodifiableList(interfaces), signature,
+				Collections.unmodifiableList(fields), Collections.unmodifiableList(methods), nested, anonymousOrLocal);
+	}
+
+	/**
+	 * Read the access flags of the class only; the constant pool is skipped
+	 * without decoding any of its strings. The stream is not closed by this
+	 * method.
+	 *
+	 * @param stream
+	 * @return
+	 * @throws IOException
+	 *             if the stream can not be read or is not a valid class file
+	 */
+	public int readAccessFlags(InputStream stream) throws IOException {
+		DataInputStream input = new DataInputStream(new BufferedInputStream(stream));
+
+		int poolCount = readHeader(input);
+		readConstantPool(input, poolCount, null, null);
+		return input.readUnsignedShort();
+	}
+
+	/**
+	 * @param input
+	 * @return the constant_pool_count
+	 * @throws IOException
+	 */
+	private int readHeader(DataInputStream input) throws IOException {
+		if (input.readInt() != MAGIC) {
+			throw new IOException("Not a valid class file : magic number mismatch");
+		}
+
+		// minor and major version
+		input.readUnsignedShort();
+		input.readUnsignedShort();
+
+		return input.readUnsignedShort();
+	}
+
+	/**
+	 * @param input
+	 * @param poolCount
+	 * @param utf8
+	 *            the utf8 entries by index; null to skip the same
+	 * @param classNameIndex
+	 *            the name index of the class entries by index; null to skip
+	 *            the same
+	 * @throws IOException
+	 */
+	private void readConstantPool(DataInputStream input, int poolCount, String[] utf8, int[] classNameIndex)
+			throws IOException {
+		for (int index = 1; index < poolCount; index++) {
+			int tag = input.readUnsignedByte();
+			switch (tag) {
+			case CONSTANT_UTF8:
+				if (null != utf8) {
+					utf8[index] = input.readUTF();
+				} else {
+					skipFully(input, input.readUnsignedShort());
+				}
+				break;
+			case CONSTANT_CLASS:
+				if (null != classNameIndex) {
+					classNameIndex[index] = input.readUnsignedShort();
+				} else {
+					skipFully(input, 2);
+				}
+				break;
+			case CONSTANT_STRING:
+			case CONSTANT_METHOD_TYPE:
+			case CONSTANT_MODULE:
+			case CONSTANT_PACKAGE:
+				skipFully(input, 2);
+				break;
+			case CONSTANT_METHOD_HANDLE:
+				skipFully(input, 3);
+				break;
+			case CONSTANT_INTEGER:
+			case CONSTANT_FLOAT:
+			case CONSTANT_FIELDREF:
+			case CONSTANT_METHODREF:
+			case CONSTANT_INTERFACE_METHODREF:
+			case CONSTANT_NAME_AND_TYPE:
+			case CONSTANT_DYNAMIC:
+			case CONSTANT_INVOKE_DYNAMIC:
+				skipFully(input, 4);
+				break;
+			case CONSTANT_LONG:
+			case CONSTANT_DOUBLE:
+				// 8 byte constants take up two entries in the pool
+				skipFully(input, 8);
+				index++;
+				break;
+			default:
+				throw new IOException("Invalid constant pool tag " + tag + " at index " + index);
+			}
+		}
+	}
+
+	/**
+	 * field_info and method_info share the same layout
+	 *
+	 * @param input
+	 * @param utf8
+	 * @return
+	 * @throws IOException
+	 */
+	private List<MemberDetails> readMembers(DataInputStream input, String[] utf8) throws IOException {
+		int count = input.readUnsignedShort();
+		List<MemberDetails> members = new ArrayList<>(count);
+
+		for (int index = 0; index < count; index++) {
+			int accessFlags = input.readUnsignedShort();
+			String name = utf8(input.readUnsignedShort(), utf8);
+			String descriptor = utf8(input.readUnsignedShort(), utf8);
+			String signature = readAttributes(input, utf8);
+
+			members.add(new MemberDetails(accessFlags, symbols.apply(name), symbols.apply(descriptor),
+					null != signature ? symbols.apply(signature) : null));
+		}
+
+		return members;
+	}
+
+	/**
+	 * Skips over an attribute table returning the value of the Signature
+	 * attribute, if any.
+	 *
+	 * @param input
+	 * @param utf8
+	 * @return
+	 * @throws IOException
+	 */
+	private String readAttributes(DataInputStream input, String[] utf8) throws IOException {
+		String signature = null;
+		int count = input.readUnsignedShort();
+
+		for (int index = 0; index < count; index++) {
+			String attributeName = utf8(input.readUnsignedShort(), utf8);
+			int length = input.readInt();
+
+			if (SIGNATURE.equals(attributeName) && length == 2) {
+				signature = utf8(input.readUnsignedShort(), utf8);
+			} else {
+				skipFully(input, length);
+			}
+		}
+
+		return signature;
+	}
+
+	private String className(int index, String[] utf8, int[] classNameIndex) throws IOException {
+		// super_class is 0 for java.lang.Object
+		if (index == 0) {
+			return null;
+		}
+
+		if (index >= classNameIndex.length || classNameIndex[index] == 0) {
+			throw new IOException("Invalid class reference in constant pool at index " + index);
+		}
+
+		return utf8(classNameIndex[index], utf8).replace('/', '.');
+	}
+
+	private String utf8(int index, String[] utf8) throws IOException {
+		if (index <= 0 || index >= utf8.length || null == utf8[index]) {
+			throw new IOException("Invalid utf8 reference in constant pool at index " + index);
+		}
+		return utf8[index];
+	}
+
+	private void skipFully(DataInputStream input, int length) throws IOException {
+		int remaining = length;
+		while (remaining > 0) {
+			int skipped = input.skipBytes(remaining);
+			if (skipped <= 0) {
+				throw new EOFException("Unexpected end of class file");
+			}
+			remaining -= skipped;
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package io.gaurs.graffiti.bytecode;
+
+/**
+ * A field or method as declared in the class file. Only the raw access flags,
+ * name, descriptor and (optional) generic signature are kept; the types are
+ * decoded on demand using {@link SignatureParser}.
+ *
+ * @author gaurs
+ *
+ */
+public class MemberDetails {
+
+	private final int accessFlags;
+	private final String name;
+	private final String descriptor;
+	private final String signature;
+
+	public MemberDetails(int accessFlags, String name, String descriptor, String signature) {
+		this.accessFlags = accessFlags;
+		this.name = name;
+		this.descriptor = descriptor;
+		this.signature = signature;
+	}
+
+	public int getAccessFlags() {
+		return accessFlags;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getDescriptor() {
+		return descriptor;
+	}
+
+	/**
+	 * @return the generic signature if the class file carries one; null
+	 *         otherwise
+	 */
+	public String getSignature() {
+		return signature;
+	}
+
+	/**
+	 * @return the generic signature if present; else the erased descriptor
+	 */
+	public String getGenericDescriptor() {
+		return null != signature ? signature : descriptor;
+	}
+
+	public boolean isSynthetic() {
+		return (accessFlags & ClassFileReader.ACC_SYNTHETIC) != 0;
+	}
+}
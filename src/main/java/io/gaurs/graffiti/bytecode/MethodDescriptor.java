@@ -0,0 +1,89 @@
+package io.gaurs.graffiti.bytecode;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * A method as shown on the class page : its modifiers, name, return type and
+ * parameter types. The types are decoded from the generic signature (or the
+ * descriptor) once while the class is analysed; the value is immutable. A
+ * method whose signature is malformed has no return type and parameter types.
+ *
+ * @author gaurs
+ *
+ */
+public final class MethodDescriptor {
+
+	private final int modifiers;
+	private final String name;
+	private final String returnType;
+	private final List<String> parameterTypes;
+
+	public MethodDescriptor(int modifiers, String name, String returnType, List<String> parameterTypes) {
+		this.modifiers = modifiers;
+		this.name = name;
+		this.returnType = returnType;
+		this.parameterTypes = null != parameterTypes ? Collections.unmodifiableList(new ArrayList<>(parameterTypes))
+				: Collections.<String> emptyList();
+	}
+
+	/**
+	 * Decode the given method of a class file
+	 *
+	 * @param method
+	 * @param symbols
+	 *            applied to the type names; ex: to share the same instance
+	 *            across methods
+	 * @return
+	 */
+	public static MethodDescriptor decode(MemberDetails method, UnaryOperator<String> symbols) {
+		int modifiers = method.getAccessFlags() & Modifier.methodModifiers();
+
+		List<String> typeNames = null;
+		try {
+			typeNames = SignatureParser.methodTypeNames(method.getGenericDescriptor());
+		} catch (IllegalArgumentException exception) {
+			// The signature in the class file is malformed
+			return new MethodDescriptor(modifiers, method.getName(), null, null);
+		}
+
+		// the return type follows the parameters
+		List<String> parameterTypes = new ArrayList<>(typeNames.size() - 1);
+		for (int index = 0; index < typeNames.size() - 1; index++) {
+			parameterTypes.add(symbols.apply(typeNames.get(index)));
+		}
+
+		return new MethodDescriptor(modifiers, method.getName(), symbols.apply(typeNames.get(typeNames.size() - 1)),
+				parameterTypes);
+	}
+
+	/**
+	 * @return the modifiers as per {@link Modifier}
+	 */
+	public int getModifiers() {
+		return modifiers;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the type name of the return type; null if the signature is
+	 *         malformed
+	 */
+	public String getReturnType() {
+		return returnType;
+	}
+
+	public List<String> getParameterTypes() {
+		return parameterTypes;
+	}
+
+	public boolean isMalformed() {
+		return null == returnType;
+	}
+}
@@ -0,0 +1,231 @@
+package io.gaurs.graffiti.bytecode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes field/method descriptors and generic signatures (JVMS 4.3 and 4.7.9.1)
+ * into the java type names used across the generated pages. The output follows
+ * the format of {@link java.lang.reflect.Type#getTypeName()} ex:
+ * <ul>
+ * <li>I -> int</li>
+ * <li>[Ljava/lang/String; -> java.lang.String[]</li>
+ * <li>Ljava/util/Map&lt;TK;+Ljava/lang/Number;&gt; -> java.util.Map&lt;K, ?
+ * extends java.lang.Number&gt;</li>
+ * </ul>
+ *
+ * @author gaurs
+ *
+ */
+public class SignatureParser {
+
+	private final String signature;
+	private int position;
+
+	private SignatureParser(String signature) {
+		this.signature = signature;
+	}
+
+	/**
+	 * @param descriptor
+	 *            a field descriptor or a field signature
+	 * @return the generic type name
+	 */
+	public static String typeName(String descriptor) {
+		SignatureParser parser = new SignatureParser(descriptor);
+		StringBuilder builder = new StringBuilder();
+		parser.javaType(builder);
+		return builder.toString();
+	}
+
+	/**
+	 * The erased name of a field descriptor in the format of
+	 * {@link Class#getName()} ex: int, java.lang.String, [Ljava.lang.String;
+	 *
+	 * @param descriptor
+	 * @return
+	 */
+	public static String erasure(String descriptor) {
+		switch (descriptor.charAt(0)) {
+		case 'L':
+			return descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+		case '[':
+			return descriptor.replace('/', '.');
+		default:
+			return typeName(descriptor);
+		}
+	}
+
+	/**
+	 * @param descriptor
+	 *            a method descriptor or method signature
+	 * @return the type names of the method parameters followed by the type
+	 *         name of the return type
+	 */
+	public static List<String> methodTypeNames(String descriptor) {
+		SignatureParser parser = new SignatureParser(descriptor);
+		parser.skipTypeParameters();
+		parser.expect('(');
+
+		List<String> typeNames = new ArrayList<>();
+		while (parser.peek() != ')') {
+			StringBuilder builder = new StringBuilder();
+			parser.javaType(builder);
+			typeNames.add(builder.toString());
+		}
+		parser.expect(')');
+
+		// the throws clause if any is not of interest
+		StringBuilder builder = new StringBuilder();
+		parser.javaType(builder);
+		typeNames.add(builder.toString());
+
+		return typeNames;
+	}
+
+	private void javaType(StringBuilder builder) {
+		char current = next();
+		switch (current) {
+		case 'B':
+			builder.append("byte");
+			break;
+		case 'C':
+			builder.append("char");
+			break;
+		case 'D':
+			builder.append("double");
+			break;
+		case 'F':
+			builder.append("float");
+			break;
+		case 'I':
+			builder.append("int");
+			break;
+		case 'J':
+			builder.append("long");
+			break;
+		case 'S':
+			builder.append("short");
+			break;
+		case 'Z':
+			builder.append("boolean");
+			break;
+		case 'V':
+			builder.append("void");
+			break;
+		case '[':
+			javaType(builder);
+			builder.append("[]");
+			break;
+		case 'T':
+			int end = signature.indexOf(';', position);
+			if (end < 0) {
+				throw new IllegalArgumentException("Unexpected end of signature " + signature);
+			}
+			builder.append(signature, position, end);
+			position = end + 1;
+			break;
+		case 'L':
+			classType(builder);
+			break;
+		default:
+			throw new IllegalArgumentException("Invalid signature " + signature + " at " + (position - 1));
+		}
+	}
+
+	/**
+	 * ClassTypeSignature: L PackageSpecifier SimpleClassTypeSignature
+	 * {.SimpleClassTypeSignature} ;
+	 *
+	 * @param builder
+	 */
+	private void classType(StringBuilder builder) {
+		while (true) {
+			char current = next();
+			switch (current) {
+			case '/':
+				builder.append('.');
+				break;
+			case '.':
+				// inner class of a parameterized outer class
+				builder.append('$');
+				break;
+			case '<':
+				typeArguments(builder);
+				break;
+			case ';':
+				return;
+			default:
+				builder.append(current);
+			}
+		}
+	}
+
+	private void typeArguments(StringBuilder builder) {
+		builder.append('<');
+		boolean first = true;
+
+		while (peek() != '>') {
+			if (!first) {
+				builder.append(", ");
+			}
+			first = false;
+
+			char current = peek();
+			if (current == '*') {
+				position++;
+				builder.append('?');
+			} else if (current == '+') {
+				position++;
+				builder.append("? extends ");
+				javaType(builder);
+			} else if (current == '-') {
+				position++;
+				builder.append("? super ");
+				javaType(builder);
+			} else {
+				javaType(builder);
+			}
+		}
+
+		position++;
+		builder.append('>');
+	}
+
+	/**
+	 * TypeParameters are not part of the type names; skip till the matching
+	 * closing bracket.
+	 */
+	private void skipTypeParameters() {
+		if (position < signature.length() && peek() == '<') {
+			int depth = 0;
+			do {
+				char current = next();
+				if (current == '<') {
+					depth++;
+				} else if (current == '>') {
+					depth--;
+				}
+			} while (depth > 0);
+		}
+	}
+
+	private void expect(char expected) {
+		if (next() != expected) {
+			throw new IllegalArgumentException("Invalid signature " + signature + " at " + (position - 1));
+		}
+	}
+
+	private char peek() {
+		if (position >= signature.length()) {
+			throw new IllegalArgumentException("Unexpected end of signature " + signature);
+		}
+		return signature.charAt(position);
+	}
+
+	private char next() {
+		char current = peek();
+		position++;
+		return current;
+	}
+}
@@ -0,0 +1,97 @@
+package io.gaurs.graffiti.classpath;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The files of a {@link ZipArchive} under a prefix ex: BOOT-INF/classes/ of a
+ * fat jar; the files are named relative to the prefix so that the same map to
+ * the package names. The files under the excluded prefixes belong to other
+ * sources.
+ *
+ * @author gaurs
+ *
+ */
+class ArchiveSource implements ClassSource {
+
+	private final ZipArchive archive;
+	private final String path;
+	private final String prefix;
+	private final List<String> excluded;
+
+	/**
+	 * @param archive
+	 * @param path
+	 *            ex: /path/to/app.jar!/BOOT-INF/classes
+	 * @param prefix
+	 *            ex: BOOT-INF/classes/ ; empty for the root of the archive
+	 * @param excluded
+	 */
+	ArchiveSource(ZipArchive archive, String path, String prefix, List<String> excluded) {
+		this.archive = archive;
+		this.path = path;
+		this.prefix = prefix;
+		this.excluded = excluded;
+	}
+
+	@Override
+	public String getPath() {
+		return path;
+	}
+
+	@Override
+	public List<SourceEntry> getEntries() {
+		List<SourceEntry> entries = new ArrayList<>();
+
+		for (ZipArchive.Entry entry : getArchiveEntries()) {
+			entries.add(new SourceEntry(entry.getName().substring(prefix.length()), entry.getCrc(), entry.getSize()));
+		}
+		return entries;
+	}
+
+	@Override
+	public InputStream getInputStream(String name) throws IOException {
+		ZipArchive.Entry entry = archive.getEntry(prefix + name);
+		return null == entry ? null : archive.getInputStream(entry);
+	}
+
+	@Override
+	public void digest(MessageDigest digest) throws IOException {
+		for (ZipArchive.Entry entry : getArchiveEntries()) {
+			// the name is part of the contents; the data is digested as
+			// stored in the archive
+			digest.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			digest.update(archive.getData(entry));
+		}
+	}
+
+	@Override
+	public void close() {
+		// the mapped buffer is released once no longer referred to
+	}
+
+	private List<ZipArchive.Entry> getArchiveEntries() {
+		List<ZipArchive.Entry> entries = new ArrayList<>();
+
+		for (ZipArchive.Entry entry : archive.getEntries()) {
+			if (!entry.isDirectory() && entry.getName().startsWith(prefix) && !isExcluded(entry.getName())) {
+				entries.add(entry);
+			}
+		}
+		return entries;
+	}
+
+	private boolean isExcluded(String name) {
+		for (String exclusion : excluded) {
+			if (name.startsWith(exclusion)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,49 @@
+package io.gaurs.graffiti.classpath;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads a buffer from its position till its limit; the buffer is not copied
+ *
+ * @author gaurs
+ *
+ */
+class ByteBufferInputStream extends InputStream {
+
+	private final ByteBuffer buffer;
+
+	ByteBufferInputStream(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	@Override
+	public int read() {
+		return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+	}
+
+	@Override
+	public int read(byte[] bytes, int offset, int length) {
+		if (0 == length) {
+			return 0;
+		} else if (!buffer.hasRemaining()) {
+			return -1;
+		}
+
+		int read = Math.min(length, buffer.remaining());
+		buffer.get(bytes, offset, read);
+		return read;
+	}
+
+	@Override
+	public long skip(long count) {
+		int skipped = (int) Math.max(0, Math.min(count, buffer.remaining()));
+		buffer.position(buffer.position() + skipped);
+		return skipped;
+	}
+
+	@Override
+	public int available() {
+		return buffer.remaining();
+	}
+}
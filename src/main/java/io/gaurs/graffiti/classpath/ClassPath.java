@@ -0,0 +1,136 @@
+package io.gaurs.graffiti.classpath;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.pmw.tinylog.Logger;
+
+/**
+ * The jar files and class directories analysed together. All of them are
+ * read into a single ComplexTypeCache so that the types resolve across the
+ * sources; the pages are generated for the documented sources only. A class
+ * found in more than one source is taken from the first one, same as the java
+ * class path. The classes and libraries nested in a fat jar are sources of
+ * their own; see {@link FatJar}.
+ *
+ * @author gaurs
+ *
+ */
+public class ClassPath implements Closeable {
+
+	private final List<ClassSource> sources = new ArrayList<>();
+
+	// paths of the documented sources; empty if all of them are documented
+	private final Set<String> documented;
+
+	private ClassPath(Set<String> documented) {
+		this.documented = documented;
+	}
+
+	/**
+	 * Open every entry of the given class path. An entry that can not be
+	 * opened is skipped.
+	 *
+	 * @param classPath
+	 *            the jar files and directories separated by
+	 *            File.pathSeparator
+	 * @param pages
+	 *            paths of the documented entries; empty if all of them are
+	 *            documented
+	 * @return
+	 */
+	public static ClassPath open(String classPath, List<String> pages) {
+		ClassPath opened = new ClassPath(new HashSet<>(pages));
+
+		for (File entry : getEntries(classPath)) {
+			try {
+				// a fat jar is split into its classes and nested jars; a jar
+				// that can not be mapped is read through a JarFile instead
+				List<ClassSource> nested = entry.isFile() ? FatJar.open(entry) : null;
+				if (null != nested) {
+					opened.sources.addAll(nested);
+				} else {
+					opened.sources.add(ClassSource.open(entry));
+				}
+			} catch (IOException exception) {
+				Logger.error("Exception occurred while opening the class path entry : " + entry.getPath(), exception);
+			}
+		}
+		return opened;
+	}
+
+	/**
+	 * @param classPath
+	 *            the jar files and directories separated by
+	 *            File.pathSeparator
+	 * @return the entries of the class path; the duplicates are dropped
+	 */
+	public static List<File> getEntries(String classPath) {
+		List<File> entries = new ArrayList<>();
+		Set<String> paths = new HashSet<>();
+
+		for (String entry : classPath.split(File.pathSeparator)) {
+			if (!entry.trim().isEmpty() && paths.add(normalize(new File(entry.trim())))) {
+				entries.add(new File(entry.trim()));
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * @param file
+	 * @return the absolute path of the given file without any . or ..
+	 */
+	public static String normalize(File file) {
+		return file.getAbsoluteFile().toPath().normalize().toString();
+	}
+
+	/**
+	 * @return the sources in the order of the class path
+	 */
+	public List<ClassSource> getSources() {
+		return Collections.unmodifiableList(sources);
+	}
+
+	/**
+	 * @param source
+	 * @return true if the pages are generated for the classes of the given
+	 *         source; the sources nested in a documented jar are documented
+	 *         as well
+	 */
+	public boolean isDocumented(ClassSource source) {
+		return documented.isEmpty() || documented.contains(source.getPath())
+				|| documented.contains(getContainer(source.getPath()));
+	}
+
+	/**
+	 * @param path
+	 *            ex: /path/to/app.jar!/BOOT-INF/classes
+	 * @return the path of the jar the given source is nested in ex:
+	 *         /path/to/app.jar ; the given path if it is not nested
+	 */
+	public static String getContainer(String path) {
+		int separator = path.indexOf("!/");
+		return separator < 0 ? path : path.substring(0, separator);
+	}
+
+	/**
+	 * Close all the sources
+	 */
+	@Override
+	public void close() {
+		for (ClassSource source : sources) {
+			try {
+				source.close();
+			} catch (IOException exception) {
+				Logger.error("Exception occurred while closing the class path entry : " + source.getPath(), exception);
+			}
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package io.gaurs.graffiti.classpath;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * A single entry of the class path; a jar file or a directory of class files.
+ * The files of a source are named relative to its root with '/' as the
+ * separator ex: org/apache/commons/io/IOUtils.class. A source is read by the
+ * analysis threads concurrently.
+ *
+ * @author gaurs
+ *
+ */
+public interface ClassSource extends Closeable {
+
+	/**
+	 * @return the normalized absolute path of the jar file or directory
+	 */
+	public String getPath();
+
+	/**
+	 * @return every file of the source in a stable order
+	 * @throws IOException
+	 */
+	public List<SourceEntry> getEntries() throws IOException;
+
+	/**
+	 * @param name
+	 *            ex: org/apache/commons/io/IOUtils.class
+	 * @return the contents of the given file; null if there is no such file
+	 * @throws IOException
+	 */
+	public InputStream getInputStream(String name) throws IOException;
+
+	/**
+	 * Feed the contents of the source to the given digest
+	 *
+	 * @param digest
+	 * @throws IOException
+	 */
+	public void digest(MessageDigest digest) throws IOException;
+
+	/**
+	 * @param file
+	 *            a jar file or a directory
+	 * @return
+	 * @throws IOException
+	 */
+	public static ClassSource open(File file) throws IOException {
+		if (file.isDirectory()) {
+			return new DirectorySource(file);
+		}
+		return new JarSource(file);
+	}
+}
@@ -0,0 +1,135 @@
+package io.gaurs.graffiti.classpath;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.pmw.tinylog.Logger;
+
+/**
+ * A directory of class files ex: target/classes. The files are listed in the
+ * order of their names so that the output does not depend upon the file
+ * system. The crc of a file is computed only once asked for as the same
+ * means reading the whole file.
+ *
+ * @author gaurs
+ *
+ */
+class DirectorySource implements ClassSource {
+
+	private final Path root;
+	private final String path;
+
+	DirectorySource(File directory) {
+		this.root = directory.toPath();
+		this.path = ClassPath.normalize(directory);
+	}
+
+	@Override
+	public String getPath() {
+		return path;
+	}
+
+	@Override
+	public List<SourceEntry> getEntries() throws IOException {
+		List<SourceEntry> entries = new ArrayList<>();
+		for (Path file : getFiles()) {
+			entries.add(new FileEntry(getName(file), file, Files.size(file)));
+		}
+		return entries;
+	}
+
+	@Override
+	public InputStream getInputStream(String name) throws IOException {
+		Path file = root.resolve(name);
+		return Files.isRegularFile(file) ? Files.newInputStream(file) : null;
+	}
+
+	@Override
+	public void digest(MessageDigest digest) throws IOException {
+		byte[] buffer = new byte[64 * 1024];
+		for (Path file : getFiles()) {
+			// the name is part of the contents of a directory
+			digest.update(getName(file).getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+
+			try (InputStream stream = Files.newInputStream(file)) {
+				int read = 0;
+				while ((read = stream.read(buffer)) > 0) {
+					digest.update(buffer, 0, read);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		// nothing is kept open
+	}
+
+	private List<Path> getFiles() throws IOException {
+		try (Stream<Path> files = Files.walk(root)) {
+			return files.filter(Files::isRegularFile).sorted((first, second) -> getName(first).compareTo(getName(second)))
+					.collect(Collectors.toList());
+		}
+	}
+
+	/**
+	 * A file whose crc is computed on first use; the same is needed only to
+	 * find the classes changed since an earlier run
+	 */
+	private static class FileEntry extends SourceEntry {
+
+		private final Path file;
+
+		private long crc = -1;
+		private boolean computed;
+
+		FileEntry(String name, Path file, long size) {
+			super(name, -1, size);
+			this.file = file;
+		}
+
+		@Override
+		public synchronized long getCrc() {
+			if (!computed) {
+				computed = true;
+				crc = computeCrc();
+			}
+			return crc;
+		}
+
+		private long computeCrc() {
+			CRC32 crc = new CRC32();
+			byte[] buffer = new byte[64 * 1024];
+			try (InputStream stream = Files.newInputStream(file)) {
+				int read = 0;
+				while ((read = stream.read(buffer)) > 0) {
+					crc.update(buffer, 0, read);
+				}
+				return crc.getValue();
+			} catch (IOException exception) {
+				Logger.debug("Exception occurred while reading : " + file);
+				return -1;
+			}
+		}
+	}
+
+	/**
+	 * @param file
+	 * @return the name of the file relative to the root ex:
+	 *         org/apache/commons/io/IOUtils.class
+	 */
+	private String getName(Path file) {
+		return root.relativize(file).toString().replace(File.separatorChar, '/');
+	}
+}
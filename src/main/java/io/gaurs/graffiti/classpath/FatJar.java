@@ -0,0 +1,131 @@
+package io.gaurs.graffiti.classpath;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.pmw.tinylog.Logger;
+
+/**
+ * A jar with the classes and libraries nested in it ex: a spring boot jar
+ * (BOOT-INF/classes, BOOT-INF/lib/*.jar) or a war (WEB-INF/classes,
+ * WEB-INF/lib/*.jar). The jar is memory mapped and split into the following
+ * sources in the order of the class path of the application :
+ * <ol>
+ * <li>the classes; named without the prefix ex: com/acme/App.class</li>
+ * <li>every nested jar; read from the outer jar without any extraction</li>
+ * <li>the rest of the jar ex: the launcher classes and META-INF</li>
+ * </ol>
+ * The path of a nested source is that of the jar followed by !/ and the
+ * prefix ex: /path/to/app.jar!/BOOT-INF/lib/commons-io-2.5.jar
+ *
+ * @author gaurs
+ *
+ */
+class FatJar {
+
+	private static final String[] LAYOUTS = { "BOOT-INF/", "WEB-INF/" };
+
+	private FatJar() {
+
+	}
+
+	/**
+	 * The central directory is parsed once for the layout and the sources
+	 * alike; an ordinary jar is read from the same mapping as a single source.
+	 *
+	 * @param file
+	 * @return the sources of the given jar; null if the same can not be read
+	 *         from memory ex: a zip64 archive
+	 * @throws IOException
+	 */
+	static List<ClassSource> open(File file) throws IOException {
+		ByteBuffer mapped = null;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				return null;
+			}
+			// the mapping stays valid once the channel is closed
+			mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		ZipArchive archive = null;
+		try {
+			archive = new ZipArchive(mapped);
+		} catch (IOException exception) {
+			Logger.debug("Not read from memory : " + file.getPath() + " : " + exception.getMessage());
+			return null;
+		}
+
+		String path = ClassPath.normalize(file);
+		String layout = getLayout(archive);
+		if (null == layout) {
+			return Collections.singletonList(new ArchiveSource(archive, path, "", Collections.emptyList()));
+		}
+
+		List<ClassSource> sources = new ArrayList<>();
+
+		sources.add(new ArchiveSource(archive, path + "!/" + layout + "classes", layout + "classes/",
+				Collections.emptyList()));
+
+		for (ZipArchive.Entry entry : archive.getEntries()) {
+			if (entry.getName().startsWith(layout + "lib/") && entry.getName().endsWith(".jar")) {
+				try {
+					sources.add(new ArchiveSource(new ZipArchive(getNestedJar(archive, entry)),
+							path + "!/" + entry.getName(), "", Collections.emptyList()));
+				} catch (IOException exception) {
+					Logger.error("Exception occurred while reading the nested jar : " + path + "!/" + entry.getName(),
+							exception);
+				}
+			}
+		}
+
+		sources.add(new ArchiveSource(archive, path, "", Collections.singletonList(layout)));
+
+		Logger.info("Reading " + file.getPath() + " as a fat jar of " + (sources.size() - 2) + " nested jars");
+		return sources;
+	}
+
+	private static String getLayout(ZipArchive archive) {
+		for (String layout : LAYOUTS) {
+			for (ZipArchive.Entry entry : archive.getEntries()) {
+				if (entry.getName().startsWith(layout + "classes/") || entry.getName().startsWith(layout + "lib/")) {
+					return layout;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * A nested jar is stored uncompressed in a spring boot jar; the same is a
+	 * slice of the outer jar then. A compressed one is inflated into memory.
+	 *
+	 * @param archive
+	 * @param entry
+	 * @return
+	 * @throws IOException
+	 */
+	private static ByteBuffer getNestedJar(ZipArchive archive, ZipArchive.Entry entry) throws IOException {
+		if (ZipArchive.STORED == entry.getMethod()) {
+			return archive.getData(entry);
+		}
+
+		ByteArrayOutputStream contents = new ByteArrayOutputStream((int) Math.max(32, entry.getSize()));
+		try (InputStream stream = archive.getInputStream(entry)) {
+			byte[] buffer = new byte[64 * 1024];
+			int read = 0;
+			while ((read = stream.read(buffer)) > 0) {
+				contents.write(buffer, 0, read);
+			}
+		}
+		return ByteBuffer.wrap(contents.toByteArray());
+	}
+}
@@ -0,0 +1,74 @@
+package io.gaurs.graffiti.classpath;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * A jar file of the class path that can not be memory mapped ex: a zip64
+ * archive; the entries are listed in the order of the jar. The crc and size are taken from the jar directory, hence listing the
+ * entries does not read the class files.
+ *
+ * @author gaurs
+ *
+ */
+class JarSource implements ClassSource {
+
+	private final File file;
+	private final String path;
+	private final JarFile jarFile;
+
+	JarSource(File file) throws IOException {
+		this.file = file;
+		this.path = ClassPath.normalize(file);
+		this.jarFile = new JarFile(file);
+	}
+
+	@Override
+	public String getPath() {
+		return path;
+	}
+
+	@Override
+	public List<SourceEntry> getEntries() {
+		List<SourceEntry> entries = new ArrayList<>();
+
+		Enumeration<JarEntry> jarEntries = jarFile.entries();
+		while (jarEntries.hasMoreElements()) {
+			JarEntry entry = jarEntries.nextElement();
+			if (!entry.isDirectory()) {
+				entries.add(new SourceEntry(entry.getName(), entry.getCrc(), entry.getSize()));
+			}
+		}
+		return entries;
+	}
+
+	@Override
+	public InputStream getInputStream(String name) throws IOException {
+		JarEntry entry = jarFile.getJarEntry(name);
+		return null == entry ? null : jarFile.getInputStream(entry);
+	}
+
+	@Override
+	public void digest(MessageDigest digest) throws IOException {
+		try (InputStream stream = Files.newInputStream(file.toPath())) {
+			byte[] buffer = new byte[64 * 1024];
+			int read = 0;
+			while ((read = stream.read(buffer)) > 0) {
+				digest.update(buffer, 0, read);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		jarFile.close();
+	}
+}
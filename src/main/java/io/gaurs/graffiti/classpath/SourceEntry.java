@@ -0,0 +1,42 @@
+package io.gaurs.graffiti.classpath;
+
+/**
+ * A file of a {@link ClassSource} along with its crc and size
+ *
+ * @author gaurs
+ *
+ */
+public class SourceEntry {
+
+	private final String name;
+	private final long crc;
+	private final long size;
+
+	public SourceEntry(String name, long crc, long size) {
+		this.name = name;
+		this.crc = crc;
+		this.size = size;
+	}
+
+	/**
+	 * @return ex: org/apache/commons/io/IOUtils.class
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the crc of the contents; -1 if not known. The same may be
+	 *         computed only once asked for
+	 */
+	public long getCrc() {
+		return crc;
+	}
+
+	/**
+	 * @return the size of the contents; -1 if not known
+	 */
+	public long getSize() {
+		return size;
+	}
+}
@@ -0,0 +1,221 @@
+package io.gaurs.graffiti.classpath;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A zip archive read straight from a buffer; ex: a memory mapped jar file or a
+ * jar nested in the same. Only the central directory is parsed upfront. The
+ * contents of a stored entry are a slice of the buffer, hence the same are
+ * never copied; a deflated entry is inflated while it is read. Zip64 archives
+ * are not supported. Read by the analysis threads concurrently.
+ *
+ * @author gaurs
+ *
+ */
+class ZipArchive {
+
+	private static final int LOCAL_HEADER = 0x04034b50;
+	private static final int CENTRAL_HEADER = 0x02014b50;
+	private static final int END_HEADER = 0x06054b50;
+
+	private static final int END_HEADER_SIZE = 22;
+	private static final int LOCAL_HEADER_SIZE = 30;
+	private static final int CENTRAL_HEADER_SIZE = 46;
+
+	static final int STORED = 0;
+	static final int DEFLATED = 8;
+
+	private final ByteBuffer buffer;
+
+	private final List<Entry> entries = new ArrayList<>();
+	private final Map<String, Entry> byName = new HashMap<>();
+
+	/**
+	 * @param data
+	 *            the archive from its position till its limit
+	 * @throws IOException
+	 *             if the central directory is malformed
+	 */
+	ZipArchive(ByteBuffer data) throws IOException {
+		buffer = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+
+		try {
+			readCentralDirectory();
+		} catch (IndexOutOfBoundsException | IllegalArgumentException exception) {
+			throw new IOException("Malformed zip archive", exception);
+		}
+	}
+
+	private void readCentralDirectory() throws IOException {
+		// the end record is followed by a comment of at most 64k
+		int end = -1;
+		for (int position = buffer.limit() - END_HEADER_SIZE; position >= Math.max(0,
+				buffer.limit() - END_HEADER_SIZE - 0xFFFF); position--) {
+			if (buffer.getInt(position) == END_HEADER) {
+				end = position;
+				break;
+			}
+		}
+
+		if (end < 0) {
+			throw new IOException("Not a zip archive");
+		}
+
+		int count = Short.toUnsignedInt(buffer.getShort(end + 10));
+		long offset = Integer.toUnsignedLong(buffer.getInt(end + 16));
+		if (0xFFFF == count || 0xFFFFFFFFL == offset) {
+			throw new IOException("Zip64 archives are not supported");
+		}
+
+		int position = (int) offset;
+		for (int index = 0; index < count; index++) {
+			if (buffer.getInt(position) != CENTRAL_HEADER) {
+				throw new IOException("Malformed central directory at : " + position);
+			}
+
+			int method = Short.toUnsignedInt(buffer.getShort(position + 10));
+			long crc = Integer.toUnsignedLong(buffer.getInt(position + 16));
+			long compressedSize = Integer.toUnsignedLong(buffer.getInt(position + 20));
+			long size = Integer.toUnsignedLong(buffer.getInt(position + 24));
+			int nameLength = Short.toUnsignedInt(buffer.getShort(position + 28));
+			int extraLength = Short.toUnsignedInt(buffer.getShort(position + 30));
+			int commentLength = Short.toUnsignedInt(buffer.getShort(position + 32));
+			long headerOffset = Integer.toUnsignedLong(buffer.getInt(position + 42));
+
+			byte[] name = new byte[nameLength];
+			ByteBuffer view = buffer.duplicate();
+			view.position(position + CENTRAL_HEADER_SIZE);
+			view.get(name);
+
+			Entry entry = new Entry(new String(name, StandardCharsets.UTF_8), method, crc, compressedSize, size,
+					headerOffset);
+			entries.add(entry);
+			byName.putIfAbsent(entry.getName(), entry);
+
+			position += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+		}
+	}
+
+	/**
+	 * @return the entries in the order of the central directory
+	 */
+	List<Entry> getEntries() {
+		return Collections.unmodifiableList(entries);
+	}
+
+	/**
+	 * @param name
+	 * @return null if there is no such entry
+	 */
+	Entry getEntry(String name) {
+		return byName.get(name);
+	}
+
+	/**
+	 * @param entry
+	 * @return the stored or compressed contents of the given entry as a slice
+	 *         of the archive
+	 * @throws IOException
+	 */
+	ByteBuffer getData(Entry entry) throws IOException {
+		ByteBuffer data = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+
+		try {
+			int header = (int) entry.headerOffset;
+			if (data.getInt(header) != LOCAL_HEADER) {
+				throw new IOException("Malformed local header of : " + entry.getName());
+			}
+
+			int start = header + LOCAL_HEADER_SIZE + Short.toUnsignedInt(data.getShort(header + 26))
+					+ Short.toUnsignedInt(data.getShort(header + 28));
+			data.position(start);
+			data.limit(Math.toIntExact(start + entry.compressedSize));
+			return data.slice();
+		} catch (IndexOutOfBoundsException | IllegalArgumentException | ArithmeticException exception) {
+			throw new IOException("Malformed entry : " + entry.getName(), exception);
+		}
+	}
+
+	/**
+	 * @param entry
+	 * @return the uncompressed contents of the given entry
+	 * @throws IOException
+	 */
+	InputStream getInputStream(Entry entry) throws IOException {
+		ByteBuffer data = getData(entry);
+
+		if (STORED == entry.method) {
+			return new ByteBufferInputStream(data);
+		} else if (DEFLATED != entry.method) {
+			throw new IOException("Unsupported compression method " + entry.method + " of : " + entry.getName());
+		}
+
+		// the raw inflater may need a dummy byte past the compressed data
+		Inflater inflater = new Inflater(true);
+		InputStream compressed = new SequenceInputStream(new ByteBufferInputStream(data),
+				new ByteArrayInputStream(new byte[1]));
+		return new InflaterInputStream(compressed, inflater) {
+
+			@Override
+			public void close() throws IOException {
+				super.close();
+				inflater.end();
+			}
+		};
+	}
+
+	/**
+	 * An entry of the central directory
+	 */
+	static class Entry {
+
+		private final String name;
+		private final int method;
+		private final long crc;
+		private final long compressedSize;
+		private final long size;
+		private final long headerOffset;
+
+		Entry(String name, int method, long crc, long compressedSize, long size, long headerOffset) {
+			this.name = name;
+			this.method = method;
+			this.crc = crc;
+			this.compressedSize = compressedSize;
+			this.size = size;
+			this.headerOffset = headerOffset;
+		}
+
+		String getName() {
+			return name;
+		}
+
+		int getMethod() {
+			return method;
+		}
+
+		long getCrc() {
+			return crc;
+		}
+
+		long getSize() {
+			return size;
+		}
+
+		boolean isDirectory() {
+			return name.endsWith("/");
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package io.gaurs.graffiti.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Selects the classes to be documented by their package and visibility. The
+ * packages are matched against globs where * matches a part of a single
+ * package name and ** any number of package names ex: com.acme.api.**
+ * matches com.acme.api and all the packages under it. A class is documented
+ * if its package matches any of the includes (or there are none) and none of
+ * the excludes.
+ *
+ * @author gaurs
+ *
+ */
+public class ClassFilter {
+
+	/**
+	 * Documents every class
+	 */
+	public static final ClassFilter ALL = new ClassFilter(Collections.emptyList(), Collections.emptyList(), false);
+
+	private final List<String> includes;
+	private final List<String> excludes;
+	private final List<Pattern> includePatterns = new ArrayList<>();
+	private final List<Pattern> excludePatterns = new ArrayList<>();
+
+	// true if only the public classes are documented
+	private final boolean publicOnly;
+
+	public ClassFilter(List<String> includes, List<String> excludes, boolean publicOnly) {
+		this.includes = includes;
+		this.excludes = excludes;
+		this.publicOnly = publicOnly;
+
+		includes.forEach(include -> includePatterns.add(compile(include)));
+		excludes.forEach(exclude -> excludePatterns.add(compile(exclude)));
+	}
+
+	/**
+	 * @param fullyQualifiedName
+	 *            ex: com.acme.api.Client
+	 * @return true if the package of the given class is documented
+	 */
+	public boolean isIncluded(String fullyQualifiedName) {
+		String packageName = fullyQualifiedName.lastIndexOf('.') > 0
+				? fullyQualifiedName.substring(0, fullyQualifiedName.lastIndexOf('.')) : "";
+
+		boolean included = includePatterns.isEmpty();
+		for (Pattern include : includePatterns) {
+			if (include.matcher(packageName).matches()) {
+				included = true;
+				break;
+			}
+		}
+
+		for (Pattern exclude : excludePatterns) {
+			if (exclude.matcher(packageName).matches()) {
+				return false;
+			}
+		}
+		return included;
+	}
+
+	public boolean isPublicOnly() {
+		return publicOnly;
+	}
+
+	/**
+	 * @return true if every class is documented
+	 */
+	public boolean isEmpty() {
+		return includes.isEmpty() && excludes.isEmpty() && !publicOnly;
+	}
+
+	/**
+	 * @return the filter as passed on the command line; empty if every class
+	 *         is documented
+	 */
+	@Override
+	public String toString() {
+		if (isEmpty()) {
+			return "";
+		}
+		return "include=" + String.join(",", includes) + " exclude=" + String.join(",", excludes) + " visibility="
+				+ (publicOnly ? "public" : "package");
+	}
+
+	/**
+	 * ex: com.acme.** -> com\.acme(\..*)? ; com.*.api -> com\.[^.]*\.api
+	 *
+	 * @param glob
+	 * @return
+	 */
+	private static Pattern compile(String glob) {
+		StringBuilder regex = new StringBuilder();
+
+		for (int index = 0; index < glob.length(); index++) {
+			char character = glob.charAt(index);
+
+			if (glob.startsWith(".**", index)) {
+				// the package itself or any package under it
+				regex.append("(\\..*)?");
+				index += 2;
+			} else if (glob.startsWith("**", index)) {
+				regex.append(".*");
+				index++;
+			} else if ('*' == character) {
+				regex.append("[^.]*");
+			} else {
+				regex.append(Pattern.quote(String.valueOf(character)));
+			}
+		}
+		return Pattern.compile(regex.toString());
+	}
+}
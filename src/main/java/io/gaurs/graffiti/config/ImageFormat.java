@@ -0,0 +1,34 @@
+package io.gaurs.graffiti.config;
+
+/**
+ * The format of the generated class diagrams
+ * 
+ * @author gaurs
+ *
+ */
+public enum ImageFormat {
+
+	/**
+	 * A .png image along with a .map file containing the client side image
+	 * map for the links
+	 */
+	PNG,
+
+	/**
+	 * A .svg image with the links embedded in the image itself
+	 */
+	SVG;
+
+	public String getExtension() {
+		return name().toLowerCase();
+	}
+
+	public static ImageFormat fromOption(String value) {
+		for (ImageFormat format : values()) {
+			if (format.name().equalsIgnoreCase(value.trim())) {
+				return format;
+			}
+		}
+		throw new IllegalArgumentException("Invalid image format specified : " + value);
+	}
+}
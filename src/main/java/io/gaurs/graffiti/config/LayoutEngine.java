@@ -0,0 +1,48 @@
+package io.gaurs.graffiti.config;
+
+/**
+ * The graphviz layout engine used for the diagrams too large for dot; the
+ * hierarchical layout of dot grows superlinearly with the number of nodes and
+ * edges whereas the force directed engines scale to much larger graphs
+ * 
+ * @author gaurs
+ *
+ */
+public enum LayoutEngine {
+
+	/**
+	 * The hierarchical layout used for every other diagram; i.e. no switch
+	 */
+	DOT,
+
+	/**
+	 * Spring model layout; suited for a few hundred nodes
+	 */
+	NEATO,
+
+	/**
+	 * Force directed layout
+	 */
+	FDP,
+
+	/**
+	 * Multiscale force directed layout; suited for the largest graphs
+	 */
+	SFDP;
+
+	/**
+	 * @return the value of the layout attribute of a graph ex: sfdp
+	 */
+	public String getName() {
+		return name().toLowerCase();
+	}
+
+	public static LayoutEngine fromOption(String value) {
+		for (LayoutEngine engine : values()) {
+			if (engine.name().equalsIgnoreCase(value.trim())) {
+				return engine;
+			}
+		}
+		throw new IllegalArgumentException("Invalid layout engine specified : " + value);
+	}
+}
@@ -0,0 +1,30 @@
+package io.gaurs.graffiti.config;
+
+/**
+ * The engine used to layout and render the class diagrams
+ * 
+ * @author gaurs
+ *
+ */
+public enum Renderer {
+
+	/**
+	 * The graphviz dot executable generating a .png and a .map file per class
+	 */
+	DOT,
+
+	/**
+	 * The built in layout engine generating a .svg file per class; no
+	 * graphviz installation is required
+	 */
+	JAVA;
+
+	public static Renderer fromOption(String value) {
+		for (Renderer renderer : values()) {
+			if (renderer.name().equalsIgnoreCase(value.trim())) {
+				return renderer;
+			}
+		}
+		throw new IllegalArgumentException("Invalid renderer specified : " + value);
+	}
+}
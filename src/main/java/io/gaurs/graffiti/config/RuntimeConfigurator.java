@@ -1,6 +1,18 @@
 package io.gaurs.graffiti.config;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.gaurs.graffiti.classpath.ClassPath;
+import io.gaurs.graffiti.model.MavenArtifact;
 
 /**
  * The runtime properties holder
@@ -19,6 +31,15 @@ public class RuntimeConfigurator {
 	 */
 	private static final RuntimeConfigurator INSTANCE = new RuntimeConfigurator();
 
+	/**
+	 * Names of the --name=value parameters understood by {@link #load}
+	 */
+	private static final Set<String> OPTIONS = new HashSet<>(Arrays.asList("analysis-threads", "render-threads",
+			"render-timeout", "render-batch-size", "diagram-depth", "diagram-max-nodes", "diagram-max-fields",
+			"large-graph-nodes", "large-graph-engine", "pages", "visibility", "include", "exclude", "inner-classes",
+			"package-diagrams", "pipeline", "intermediate-files", "incremental", "render-cache", "snapshot-cache",
+			"renderer", "image-format"));
+
 	private RuntimeConfigurator() {
 
 	}
@@ -33,12 +54,82 @@ public class RuntimeConfigurator {
 	private String jsFilesLocation;
 	private String pngFilesLocation;
 	private String dotExecutableLocation;
+	// jar files and class directories separated by File.pathSeparator
 	private String jarFile;
 
-	// jar statistics placeholder
-	private int classesCount;
-	private int interfaceCount;
-	private int abstractClassCount;
+	// normalized paths of the class path entries whose pages are generated;
+	// empty if all of them are documented
+	private List<String> pages = Collections.emptyList();
+
+	// packages and visibility of the documented classes
+	private ClassFilter classFilter = ClassFilter.ALL;
+
+	// show the nested classes on the page of their top level class and leave
+	// out the anonymous, lambda and synthetic classes; else every class has
+	// a page of its own
+	private boolean foldInnerClasses = true;
+
+	// number of threads used to analyse the classes; 1 means sequential
+	private int analysisThreads = Runtime.getRuntime().availableProcessors();
+
+	// engine used to layout and render the class diagrams
+	private Renderer renderer = Renderer.DOT;
+
+	// format of the class diagrams; the built in renderer supports svg only
+	private ImageFormat imageFormat = ImageFormat.PNG;
+
+	// number of dot processes run in parallel
+	private int renderThreads = Runtime.getRuntime().availableProcessors();
+
+	// seconds after which a dot process is killed
+	private int renderTimeout = 60;
+
+	// number of dot files rendered by a single dot process
+	private int renderBatchSize = 1;
+
+	// number of hops along the fields shown in the diagram of a class; 1
+	// shows the types of its fields only
+	private int diagramDepth = 1;
+
+	// number of classes shown in a diagram besides the class itself once the
+	// depth is more than 1
+	private int diagramMaxNodes = 50;
+
+	// number of fields listed in the table of a class in a diagram; the rest
+	// are collapsed into a single summary node
+	private int diagramMaxFields = 100;
+
+	// number of nodes in a diagram above which the same is laid out by the
+	// large graph engine instead of dot
+	private int largeGraphNodes = 80;
+
+	// engine used to layout the diagrams having more than largeGraphNodes
+	private LayoutEngine largeGraphEngine = LayoutEngine.SFDP;
+
+	// generate a page and a diagram for every package besides the classes
+	private boolean packageDiagrams;
+
+	// run every class through the dot, image and html stages as a unit
+	private boolean pipeline;
+
+	// write the .dot and .map files; else the same are handed over in memory
+	private boolean intermediateFiles = true;
+
+	// directory of the images rendered earlier; keyed by the hash of the dot
+	// source. null if the render cache is not used
+	private String renderCacheLocation;
+
+	// render only the classes modified since the previous run
+	private boolean incremental;
+
+	// directory of the analysed models keyed by the hash of the jar; null if
+	// the jar is analysed on every run
+	private String snapshotCacheLocation;
+
+	// jar statistics placeholder; updated concurrently during the analysis
+	private final LongAdder classesCount = new LongAdder();
+	private final LongAdder interfaceCount = new LongAdder();
+	private final LongAdder abstractClassCount = new LongAdder();
 
 	// maven details placeholder
 	private String version;
@@ -48,6 +139,10 @@ public class RuntimeConfigurator {
 	private String javaVersion;
 	private int dependenciesCount;
 
+	// every artifact found on the class path; the details above are those of
+	// the primary one
+	private List<MavenArtifact> artifacts = Collections.emptyList();
+
 	public String getOutputLocation() {
 		return outputLocation;
 	}
@@ -80,6 +175,30 @@ public class RuntimeConfigurator {
 		this.jarFile = jarFile;
 	}
 
+	public List<String> getPages() {
+		return pages;
+	}
+
+	public void setPages(List<String> pages) {
+		this.pages = pages;
+	}
+
+	public ClassFilter getClassFilter() {
+		return classFilter;
+	}
+
+	public void setClassFilter(ClassFilter classFilter) {
+		this.classFilter = classFilter;
+	}
+
+	public boolean isFoldInnerClasses() {
+		return foldInnerClasses;
+	}
+
+	public void setFoldInnerClasses(boolean foldInnerClasses) {
+		this.foldInnerClasses = foldInnerClasses;
+	}
+
 	public String getDotFilesLocation() {
 		return dotFilesLocation;
 	}
@@ -120,28 +239,187 @@ public class RuntimeConfigurator {
 		return jsFilesLocation;
 	}
 
+	public int getAnalysisThreads() {
+		return analysisThreads;
+	}
+
+	public void setAnalysisThreads(int analysisThreads) {
+		this.analysisThreads = analysisThreads;
+	}
+
+	public Renderer getRenderer() {
+		return renderer;
+	}
+
+	public void setRenderer(Renderer renderer) {
+		this.renderer = renderer;
+	}
+
+	public ImageFormat getImageFormat() {
+		return imageFormat;
+	}
+
+	public void setImageFormat(ImageFormat imageFormat) {
+		this.imageFormat = imageFormat;
+	}
+
+	public int getRenderThreads() {
+		return renderThreads;
+	}
+
+	public void setRenderThreads(int renderThreads) {
+		this.renderThreads = renderThreads;
+	}
+
+	public int getRenderTimeout() {
+		return renderTimeout;
+	}
+
+	public void setRenderTimeout(int renderTimeout) {
+		this.renderTimeout = renderTimeout;
+	}
+
+	public int getRenderBatchSize() {
+		return renderBatchSize;
+	}
+
+	public void setRenderBatchSize(int renderBatchSize) {
+		this.renderBatchSize = renderBatchSize;
+	}
+
+	public int getDiagramDepth() {
+		return diagramDepth;
+	}
+
+	public void setDiagramDepth(int diagramDepth) {
+		this.diagramDepth = diagramDepth;
+	}
+
+	public int getDiagramMaxNodes() {
+		return diagramMaxNodes;
+	}
+
+	public void setDiagramMaxNodes(int diagramMaxNodes) {
+		this.diagramMaxNodes = diagramMaxNodes;
+	}
+
+	public int getDiagramMaxFields() {
+		return diagramMaxFields;
+	}
+
+	public void setDiagramMaxFields(int diagramMaxFields) {
+		this.diagramMaxFields = diagramMaxFields;
+	}
+
+	public int getLargeGraphNodes() {
+		return largeGraphNodes;
+	}
+
+	public void setLargeGraphNodes(int largeGraphNodes) {
+		this.largeGraphNodes = largeGraphNodes;
+	}
+
+	public LayoutEngine getLargeGraphEngine() {
+		return largeGraphEngine;
+	}
+
+	public void setLargeGraphEngine(LayoutEngine largeGraphEngine) {
+		this.largeGraphEngine = largeGraphEngine;
+	}
+
+	public boolean isPackageDiagrams() {
+		return packageDiagrams;
+	}
+
+	public void setPackageDiagrams(boolean packageDiagrams) {
+		this.packageDiagrams = packageDiagrams;
+	}
+
+	public boolean isPipeline() {
+		return pipeline;
+	}
+
+	public void setPipeline(boolean pipeline) {
+		this.pipeline = pipeline;
+	}
+
+	public boolean isIntermediateFiles() {
+		return intermediateFiles;
+	}
+
+	public void setIntermediateFiles(boolean intermediateFiles) {
+		this.intermediateFiles = intermediateFiles;
+	}
+
+	public boolean isIncremental() {
+		return incremental;
+	}
+
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
+	}
+
+	public String getSnapshotCacheLocation() {
+		return snapshotCacheLocation;
+	}
+
+	public void setSnapshotCacheLocation(String snapshotCacheLocation) {
+		this.snapshotCacheLocation = snapshotCacheLocation;
+	}
+
+	public String getRenderCacheLocation() {
+		return renderCacheLocation;
+	}
+
+	public void setRenderCacheLocation(String renderCacheLocation) {
+		this.renderCacheLocation = renderCacheLocation;
+	}
+
 	public int getClassesCount() {
-		return classesCount;
+		return classesCount.intValue();
 	}
 
 	public void setClassesCount(int classesCount) {
-		this.classesCount = classesCount;
+		this.classesCount.reset();
+		this.classesCount.add(classesCount);
+	}
+
+	public void incrementClassesCount() {
+		classesCount.increment();
 	}
 
 	public int getInterfaceCount() {
-		return interfaceCount;
+		return interfaceCount.intValue();
 	}
 
 	public void setInterfaceCount(int interfaceCount) {
-		this.interfaceCount = interfaceCount;
+		this.interfaceCount.reset();
+		this.interfaceCount.add(interfaceCount);
+	}
+
+	public void incrementInterfaceCount() {
+		interfaceCount.increment();
 	}
 
 	public int getAbstractClassCount() {
-		return abstractClassCount;
+		return abstractClassCount.intValue();
 	}
 
 	public void setAbstractClassCount(int abstractClassCount) {
-		this.abstractClassCount = abstractClassCount;
+		this.abstractClassCount.reset();
+		this.abstractClassCount.add(abstractClassCount);
+	}
+
+	public void incrementAbstractClassCount() {
+		abstractClassCount.increment();
+	}
+
+	public List<MavenArtifact> getArtifacts() {
+		return artifacts;
+	}
+
+	public void setArtifacts(List<MavenArtifact> artifacts) {
+		this.artifacts = artifacts;
 	}
 
 	public String getVersion() {
@@ -170,20 +448,33 @@ public class RuntimeConfigurator {
 
 	/**
 	 * This method loads the runtime configuration properties based on the input
-	 * parameters received.
+	 * parameters received. The first three parameters are positional :
+	 * <ol>
+	 * <li>jar files and class directories to analyse separated by
+	 * File.pathSeparator</li>
+	 * <li>output directory</li>
+	 * <li>dot executable; optional with --renderer=java</li>
+	 * </ol>
+	 * Any further parameters are optional and of the form --name=value ex:
+	 * --analysis-threads=8
 	 * 
 	 * @param properties
 	 */
 	public void load(String[] properties) {
 
-		// Jar file name
-		File jarFile = new File(properties[0]);
-		if (!jarFile.exists() || !jarFile.isFile()) {
+		// Jar files and class directories
+		List<File> classPath = ClassPath.getEntries(properties[0]);
+		if (classPath.isEmpty()) {
 			throw new IllegalArgumentException("Invalid jar file specified to analyse : " + properties[0]);
-		} else {
-			this.jarFile = properties[0];
 		}
 
+		for (File entry : classPath) {
+			if (!entry.isFile() && !entry.isDirectory()) {
+				throw new IllegalArgumentException("Invalid jar file specified to analyse : " + entry.getPath());
+			}
+		}
+		this.jarFile = properties[0];
+
 		// Check the output location
 		String outputLocation = properties[1];
 
@@ -227,12 +518,221 @@ public class RuntimeConfigurator {
 			throw new IllegalArgumentException("Can not create images dir @ " + pngFilesLocation);
 		}
 
-		// dot executable
-		dotExecutableLocation = properties[2];
-		File dotExe = new File(dotExecutableLocation);
+		// dot executable; the same can be skipped if the built in renderer is
+		// used
+		boolean dotSpecified = properties.length > 2 && !properties[2].startsWith("--");
+
+		// optional parameters
+		Map<String, String> options = getOptions(properties, dotSpecified ? 3 : 2);
+
+		renderer = options.containsKey("renderer") ? Renderer.fromOption(options.get("renderer")) : renderer;
+
+		if (options.containsKey("image-format")) {
+			imageFormat = ImageFormat.fromOption(options.get("image-format"));
+		} else if (Renderer.JAVA == renderer) {
+			imageFormat = ImageFormat.SVG;
+		}
+
+		if (Renderer.JAVA == renderer && ImageFormat.SVG != imageFormat) {
+			throw new IllegalArgumentException("The java renderer supports svg images only");
+		}
+
+		if (dotSpecified) {
+			dotExecutableLocation = properties[2];
+		}
+
+		if (Renderer.DOT == renderer) {
+			File dotExe = null == dotExecutableLocation ? null : new File(dotExecutableLocation);
+
+			if (null == dotExe || !dotExe.exists() || !dotExe.isFile() || !dotExe.canExecute()) {
+				throw new IllegalArgumentException("Invalid dot file specified  : " + dotExecutableLocation);
+			}
+		}
+
+		analysisThreads = getIntOption(options, "analysis-threads", analysisThreads);
+		if (analysisThreads < 1) {
+			throw new IllegalArgumentException("Invalid number of analysis threads : " + analysisThreads);
+		}
+
+		renderThreads = getIntOption(options, "render-threads", renderThreads);
+		if (renderThreads < 1) {
+			throw new IllegalArgumentException("Invalid number of render threads : " + renderThreads);
+		}
+
+		renderTimeout = getIntOption(options, "render-timeout", renderTimeout);
+		if (renderTimeout < 1) {
+			throw new IllegalArgumentException("Invalid render timeout : " + renderTimeout);
+		}
+
+		renderBatchSize = getIntOption(options, "render-batch-size", renderBatchSize);
+		if (renderBatchSize < 1) {
+			throw new IllegalArgumentException("Invalid render batch size : " + renderBatchSize);
+		}
+
+		diagramDepth = getIntOption(options, "diagram-depth", diagramDepth);
+		if (diagramDepth < 1) {
+			throw new IllegalArgumentException("Invalid diagram depth : " + diagramDepth);
+		}
+
+		// the built in layout draws a class and the types of its fields only
+		if (diagramDepth > 1 && Renderer.JAVA == renderer) {
+			throw new IllegalArgumentException("The java renderer supports a diagram depth of 1 only");
+		}
+
+		diagramMaxNodes = getIntOption(options, "diagram-max-nodes", diagramMaxNodes);
+		if (diagramMaxNodes < 1) {
+			throw new IllegalArgumentException("Invalid number of diagram nodes : " + diagramMaxNodes);
+		}
+
+		diagramMaxFields = getIntOption(options, "diagram-max-fields", diagramMaxFields);
+		if (diagramMaxFields < 1) {
+			throw new IllegalArgumentException("Invalid number of diagram fields : " + diagramMaxFields);
+		}
+
+		// the built in layout lists every field of a class
+		if (options.containsKey("diagram-max-fields") && Renderer.JAVA == renderer) {
+			throw new IllegalArgumentException("The java renderer does not support the diagram-max-fields option");
+		}
+
+		largeGraphNodes = getIntOption(options, "large-graph-nodes", largeGraphNodes);
+		if (largeGraphNodes < 1) {
+			throw new IllegalArgumentException("Invalid number of large graph nodes : " + largeGraphNodes);
+		}
+
+		largeGraphEngine = options.containsKey("large-graph-engine")
+				? LayoutEngine.fromOption(options.get("large-graph-engine")) : largeGraphEngine;
+
+		// the pages can be limited to some of the class path entries; the rest
+		// are used to resolve the types only
+		if (options.containsKey("pages")) {
+			Set<String> entries = new HashSet<>();
+			classPath.forEach(entry -> entries.add(ClassPath.normalize(entry)));
+
+			// the sources nested in a fat jar are named after the jar ex:
+			// app.jar!/BOOT-INF/classes
+			pages = new ArrayList<>();
+			for (File page : ClassPath.getEntries(options.get("pages"))) {
+				if (!entries.contains(ClassPath.getContainer(ClassPath.normalize(page)))) {
+					throw new IllegalArgumentException("Not on the class path : " + page.getPath());
+				}
+				pages.add(ClassPath.normalize(page));
+			}
+		}
+
+		String visibility = options.getOrDefault("visibility", "package").trim();
+		if (!"public".equalsIgnoreCase(visibility) && !"package".equalsIgnoreCase(visibility)) {
+			throw new IllegalArgumentException("Invalid visibility specified : " + visibility);
+		}
+
+		if (options.containsKey("include") || options.containsKey("exclude") || options.containsKey("visibility")) {
+			classFilter = new ClassFilter(getListOption(options, "include"), getListOption(options, "exclude"),
+					"public".equalsIgnoreCase(visibility));
+		}
+
+		String innerClasses = options.getOrDefault("inner-classes", "fold").trim();
+		if (!"fold".equalsIgnoreCase(innerClasses) && !"separate".equalsIgnoreCase(innerClasses)) {
+			throw new IllegalArgumentException("Invalid value specified for inner-classes : " + innerClasses);
+		}
+		foldInnerClasses = "fold".equalsIgnoreCase(innerClasses);
+
+		// the package diagrams are laid out by dot only
+		packageDiagrams = getBooleanOption(options, "package-diagrams", packageDiagrams);
+		if (packageDiagrams && Renderer.JAVA == renderer) {
+			throw new IllegalArgumentException("The java renderer does not support the package diagrams");
+		}
+
+		pipeline = getBooleanOption(options, "pipeline", pipeline);
+		intermediateFiles = getBooleanOption(options, "intermediate-files", intermediateFiles);
+		incremental = getBooleanOption(options, "incremental", incremental);
+
+		// the render cache is shared across the runs; hence the same is not
+		// created under the output location by default
+		if (options.containsKey("render-cache")) {
+			File renderCache = new File(options.get("render-cache").trim());
+
+			if (!renderCache.isDirectory() && !renderCache.mkdirs()) {
+				throw new IllegalArgumentException("Can not create render cache dir @ " + renderCache.getPath());
+			}
+			renderCacheLocation = renderCache.getPath();
+		}
+
+		if (options.containsKey("snapshot-cache")) {
+			File snapshotCache = new File(options.get("snapshot-cache").trim());
+
+			if (!snapshotCache.isDirectory() && !snapshotCache.mkdirs()) {
+				throw new IllegalArgumentException("Can not create snapshot cache dir @ " + snapshotCache.getPath());
+			}
+			snapshotCacheLocation = snapshotCache.getPath();
+		}
+	}
+
+	/**
+	 * Collects the --name=value parameters starting at the given index
+	 * 
+	 * @param properties
+	 * @param from
+	 * @return
+	 */
+	private Map<String, String> getOptions(String[] properties, int from) {
+		Map<String, String> options = new HashMap<>();
+
+		for (int index = from; index < properties.length; index++) {
+			String property = properties[index];
+			int separator = property.indexOf('=');
+
+			if (!property.startsWith("--") || separator < 0) {
+				throw new IllegalArgumentException("Invalid option specified : " + property);
+			}
+
+			// a misspelt option would be ignored otherwise
+			String name = property.substring(2, separator);
+			if (!OPTIONS.contains(name)) {
+				throw new IllegalArgumentException("Unknown option : " + property);
+			}
+
+			options.put(name, property.substring(separator + 1));
+		}
+
+		return options;
+	}
+
+	/**
+	 * @param options
+	 * @param name
+	 * @return the comma separated values of the given option
+	 */
+	private List<String> getListOption(Map<String, String> options, String name) {
+		List<String> values = new ArrayList<>();
+		for (String value : options.getOrDefault(name, "").split(",")) {
+			if (!value.trim().isEmpty()) {
+				values.add(value.trim());
+			}
+		}
+		return values;
+	}
+
+	private boolean getBooleanOption(Map<String, String> options, String name, boolean defaultValue) {
+		String value = options.get(name);
+		if (null == value) {
+			return defaultValue;
+		}
+
+		if (!"true".equalsIgnoreCase(value.trim()) && !"false".equalsIgnoreCase(value.trim())) {
+			throw new IllegalArgumentException("Invalid value specified for " + name + " : " + value);
+		}
+		return Boolean.parseBoolean(value.trim());
+	}
+
+	private int getIntOption(Map<String, String> options, String name, int defaultValue) {
+		String value = options.get(name);
+		if (null == value) {
+			return defaultValue;
+		}
 
-		if (!dotExe.exists() || !dotExe.isFile() || !dotExe.canExecute()) {
-			throw new IllegalArgumentException("Invalid dot file specified  : " + dotExecutableLocation);
+		try {
+			return Integer.parseInt(value.trim());
+		} catch (NumberFormatException exception) {
+			throw new IllegalArgumentException("Invalid value specified for " + name + " : " + value);
 		}
 	}
 
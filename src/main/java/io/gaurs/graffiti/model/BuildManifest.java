@@ -0,0 +1,186 @@
+package io.gaurs.graffiti.model;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The classes rendered by the previous run along with the crc and size of
+ * their .class entries and the types their diagrams refer to. Persisted as a
+ * plain text file in the output location :
+ *
+ * <pre>
+ * # graffiti manifest 1
+ * # settings &lt;settings&gt;
+ * &lt;class&gt;	&lt;crc&gt;	&lt;size&gt;	&lt;C|I|A&gt;	&lt;type&gt;,&lt;type&gt;...
+ * </pre>
+ *
+ * The types referred to include the ones outside the jar; hence a class that
+ * becomes part of the jar marks the classes referring to it as modified.
+ *
+ * @author gaurs
+ *
+ */
+public class BuildManifest {
+
+	private static final String HEADER = "# graffiti manifest 1";
+	private static final String SETTINGS = "# settings ";
+
+	private static final String SEPARATOR = "\t";
+	private static final String REFERENCE_SEPARATOR = ",";
+
+	/**
+	 * A class as rendered by the previous run
+	 */
+	public static class Entry {
+		private final long crc;
+		private final long size;
+		private final char kind;
+		private final Set<String> references;
+
+		public Entry(long crc, long size, char kind, Set<String> references) {
+			this.crc = crc;
+			this.size = size;
+			this.kind = kind;
+			this.references = references;
+		}
+
+		public long getCrc() {
+			return crc;
+		}
+
+		public long getSize() {
+			return size;
+		}
+
+		/**
+		 * @return C for a class, I for an interface and A for an abstract class
+		 */
+		public char getKind() {
+			return kind;
+		}
+
+		/**
+		 * @return the types whose tables appear in the diagram of the class
+		 */
+		public Set<String> getReferences() {
+			return references;
+		}
+	}
+
+	private final String settings;
+	private final Map<String, Entry> entries = new TreeMap<>();
+
+	public BuildManifest(String settings) {
+		this.settings = settings;
+	}
+
+	public String getSettings() {
+		return settings;
+	}
+
+	public Map<String, Entry> getEntries() {
+		return entries;
+	}
+
+	public void addEntry(String className, Entry entry) {
+		entries.put(className, entry);
+	}
+
+	/**
+	 * @return the classes whose diagrams refer to every type
+	 */
+	public Map<String, Set<String>> getDependents() {
+		Map<String, Set<String>> dependents = new HashMap<>();
+		entries.forEach((className, entry) -> entry.getReferences()
+				.forEach(type -> dependents.computeIfAbsent(type, key -> new HashSet<>()).add(className)));
+		return dependents;
+	}
+
+	/**
+	 * Read the manifest written by an earlier run
+	 *
+	 * @param file
+	 * @return null if there is no manifest
+	 * @throws IOException
+	 *             if the manifest is not readable or is malformed
+	 */
+	public static BuildManifest load(File file) throws IOException {
+		if (!file.isFile()) {
+			return null;
+		}
+
+		try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			String header = reader.readLine();
+			String settings = reader.readLine();
+
+			if (!HEADER.equals(header) || null == settings || !settings.startsWith(SETTINGS)) {
+				throw new IOException("Unknown manifest format : " + file.getPath());
+			}
+
+			BuildManifest manifest = new BuildManifest(settings.substring(SETTINGS.length()));
+
+			String line = null;
+			while (null != (line = reader.readLine())) {
+				String[] columns = line.split(SEPARATOR, -1);
+				if (columns.length != 5 || columns[3].length() != 1) {
+					throw new IOException("Malformed manifest entry : " + line);
+				}
+
+				Set<String> references = columns[4].isEmpty() ? Collections.emptySet()
+						: new TreeSet<>(Arrays.asList(columns[4].split(REFERENCE_SEPARATOR)));
+
+				try {
+					manifest.addEntry(columns[0], new Entry(Long.parseLong(columns[1]), Long.parseLong(columns[2]),
+							columns[3].charAt(0), references));
+				} catch (NumberFormatException exception) {
+					throw new IOException("Malformed manifest entry : " + line, exception);
+				}
+			}
+
+			return manifest;
+		}
+	}
+
+	/**
+	 * Write the manifest; the same is written to a temporary file first so
+	 * that an interrupted run does not leave a partial manifest behind
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public void save(File file) throws IOException {
+		Path temporary = Files.createTempFile(file.getAbsoluteFile().getParentFile().toPath(), file.getName(), ".tmp");
+
+		try {
+			try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+				writer.write(HEADER + "\n");
+				writer.write(SETTINGS + settings + "\n");
+
+				for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+					Entry value = entry.getValue();
+					writer.write(entry.getKey() + SEPARATOR + value.getCrc() + SEPARATOR + value.getSize() + SEPARATOR
+							+ value.getKind() + SEPARATOR + String.join(REFERENCE_SEPARATOR, value.getReferences())
+							+ "\n");
+				}
+			}
+
+			Files.move(temporary, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+}
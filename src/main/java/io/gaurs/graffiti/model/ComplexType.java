@@ -1,8 +1,14 @@
 package io.gaurs.graffiti.model;
 
-import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+
+import io.gaurs.graffiti.bytecode.MethodDescriptor;
+import io.gaurs.graffiti.classpath.ClassSource;
 
 public class ComplexType {
 	private String name;
@@ -12,15 +18,47 @@ public class ComplexType {
 	private boolean isGeneric;
 	private boolean isArray;
 
+	// kind of the class as read from its class file
+	private boolean isInterface;
+	private boolean isAbstract;
+
+	// crc and size of the .class entry in the jar; -1 if not known
+	private long entryCrc = -1;
+	private long entrySize = -1;
+
+	// class path entry the class is read from; null for the placeholders
+	private ClassSource source = null;
+
+	// false if the class only resolves the types of the documented classes;
+	// no page is generated for the same
+	private boolean documented = true;
+
+	// true if the class is left out by the ClassFilter or is generated by the
+	// compiler ex: an anonymous class; the same is neither analysed nor
+	// documented but fields of its type still refer to it
+	private boolean excluded = false;
+
+	// the top level class whose page shows this nested class; null if the
+	// class has a page of its own
+	private ComplexType enclosingType = null;
+
+	// the nested classes shown on the page of this class; sorted by name
+	private List<ComplexType> nestedTypes = null;
+
 	private Map<String, ComplexType> attributes = null;
 
-	private List<Method> methodDetails = null;
+	private List<MethodDescriptor> methodDetails = null;
 
-	public List<Method> getMethodDetails() {
+	// dot source and image map handed over between the stages when no
+	// intermediate files are written; cleared once consumed
+	private byte[] dotSource = null;
+	private String imageMap = null;
+
+	public List<MethodDescriptor> getMethodDetails() {
 		return methodDetails;
 	}
 
-	public void setMethodDetails(List<Method> methodDetails) {
+	public void setMethodDetails(List<MethodDescriptor> methodDetails) {
 		this.methodDetails = methodDetails;
 	}
 
@@ -73,4 +111,178 @@ public class ComplexType {
 	public void setArray(boolean isArray) {
 		this.isArray = isArray;
 	}
+
+	public boolean isInterface() {
+		return isInterface;
+	}
+
+	public void setInterface(boolean isInterface) {
+		this.isInterface = isInterface;
+	}
+
+	public boolean isAbstract() {
+		return isAbstract;
+	}
+
+	public void setAbstract(boolean isAbstract) {
+		this.isAbstract = isAbstract;
+	}
+
+	public long getEntryCrc() {
+		return entryCrc;
+	}
+
+	public void setEntryCrc(long entryCrc) {
+		this.entryCrc = entryCrc;
+	}
+
+	public long getEntrySize() {
+		return entrySize;
+	}
+
+	public void setEntrySize(long entrySize) {
+		this.entrySize = entrySize;
+	}
+
+	public ClassSource getSource() {
+		return source;
+	}
+
+	public void setSource(ClassSource source) {
+		this.source = source;
+	}
+
+	public boolean isDocumented() {
+		return documented;
+	}
+
+	public void setDocumented(boolean documented) {
+		this.documented = documented;
+	}
+
+	public boolean isExcluded() {
+		return excluded;
+	}
+
+	public void setExcluded(boolean excluded) {
+		this.excluded = excluded;
+	}
+
+	public ComplexType getEnclosingType() {
+		return enclosingType;
+	}
+
+	public void setEnclosingType(ComplexType enclosingType) {
+		this.enclosingType = enclosingType;
+	}
+
+	public List<ComplexType> getNestedTypes() {
+		return null != nestedTypes ? nestedTypes : Collections.emptyList();
+	}
+
+	/**
+	 * Add a nested class to be shown on the page of this class; the nested
+	 * classes are kept sorted by name
+	 *
+	 * @param nestedType
+	 */
+	public void addNestedType(ComplexType nestedType) {
+		if (null == nestedTypes) {
+			nestedTypes = new ArrayList<>();
+		}
+
+		int index = 0;
+		while (index < nestedTypes.size()
+				&& nestedTypes.get(index).getFullyQualifiedName().compareTo(nestedType.getFullyQualifiedName()) < 0) {
+			index++;
+		}
+		nestedTypes.add(index, nestedType);
+	}
+
+	public void removeNestedType(ComplexType nestedType) {
+		if (null != nestedTypes) {
+			nestedTypes.remove(nestedType);
+		}
+	}
+
+	/**
+	 * @return the attributes shown on the page of this class : its own
+	 *         followed by those of its nested classes prefixed by the name of
+	 *         the nested class ex: Builder.name ; same as getAttributes() if
+	 *         there are no nested classes
+	 */
+	public Map<String, ComplexType> getPageAttributes() {
+		if (null == nestedTypes) {
+			return attributes;
+		}
+
+		Map<String, ComplexType> pageAttributes = new LinkedHashMap<>();
+		if (null != attributes) {
+			pageAttributes.putAll(attributes);
+		}
+		for (ComplexType nestedType : nestedTypes) {
+			if (null != nestedType.getAttributes()) {
+				String prefix = getNestedName(nestedType) + ".";
+				for (Entry<String, ComplexType> attribute : nestedType.getAttributes().entrySet()) {
+					pageAttributes.put(prefix + attribute.getKey(), attribute.getValue());
+				}
+			}
+		}
+		return pageAttributes;
+	}
+
+	/**
+	 * @return the methods shown on the page of this class : its own followed
+	 *         by those of its nested classes prefixed by the name of the
+	 *         nested class ex: Builder.build ; same as getMethodDetails() if
+	 *         there are no nested classes
+	 */
+	public List<MethodDescriptor> getPageMethods() {
+		if (null == nestedTypes) {
+			return methodDetails;
+		}
+
+		List<MethodDescriptor> pageMethods = new ArrayList<>();
+		if (null != methodDetails) {
+			pageMethods.addAll(methodDetails);
+		}
+		for (ComplexType nestedType : nestedTypes) {
+			if (null != nestedType.getMethodDetails()) {
+				String prefix = getNestedName(nestedType) + ".";
+				for (MethodDescriptor method : nestedType.getMethodDetails()) {
+					pageMethods.add(new MethodDescriptor(method.getModifiers(), prefix + method.getName(),
+							method.getReturnType(), method.getParameterTypes()));
+				}
+			}
+		}
+		return pageMethods;
+	}
+
+	/**
+	 * @param nestedType
+	 * @return name of the nested class relative to this class ex:
+	 *         Builder.Option for Config$Builder$Option
+	 */
+	private String getNestedName(ComplexType nestedType) {
+		return nestedType.getFullyQualifiedName().substring(fullyQualifiedName.length() + 1).replace('$', '.');
+	}
+
+	/**
+	 * @return the utf-8 encoded dot source
+	 */
+	public byte[] getDotSource() {
+		return dotSource;
+	}
+
+	public void setDotSource(byte[] dotSource) {
+		this.dotSource = dotSource;
+	}
+
+	public String getImageMap() {
+		return imageMap;
+	}
+
+	public void setImageMap(String imageMap) {
+		this.imageMap = imageMap;
+	}
 }
@@ -1,8 +1,15 @@
 package io.gaurs.graffiti.model;
 
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
-public class ComplexTypeCache extends HashMap<String, ComplexType> {
+/**
+ * Registry of all the classes found on the class path; the key being the
+ * fully qualified name. The registry is read and written by the analysis
+ * threads concurrently.
+ */
+public class ComplexTypeCache extends ConcurrentHashMap<String, ComplexType> {
 
 	private static final long serialVersionUID = -1085025032517774903L;
 
@@ -15,4 +22,15 @@ public class ComplexTypeCache extends HashMap<String, ComplexType> {
 	public static ComplexTypeCache getComplexTypeCache() {
 		return INSTANCE;
 	}
+
+	/**
+	 * @return the classes for which the pages are generated in the order of
+	 *         the registry; the nested classes are shown on the pages of their
+	 *         enclosing classes
+	 */
+	public Collection<ComplexType> getDocumentedTypes() {
+		return values().stream()
+				.filter(complexType -> complexType.isDocumented() && null == complexType.getEnclosingType())
+				.collect(Collectors.toList());
+	}
 }
@@ -30,6 +30,16 @@ public class ExceptionalScenarios extends ArrayList<Scenario> {
 		return this.iterator();
 	}
 
+	/**
+	 * @param index
+	 * @return the class name, package name and comment of the scenario at
+	 *         the given index
+	 */
+	public String[] getDetails(int index) {
+		Scenario scenario = get(index);
+		return new String[] { scenario.getClassName(), scenario.getPackageName(), scenario.getComment() };
+	}
+
 	public void populate(Element tableBody) {
 		this.forEach(scenario -> populateRow(scenario, tableBody));
 	}
@@ -0,0 +1,102 @@
+package io.gaurs.graffiti.model;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The fields of a class; an immutable map of field name to field type backed
+ * by two arrays instead of a hash table. The fields are kept in the iteration
+ * order of the map the table is built from. A class has a handful of fields,
+ * hence the lookups simply scan the names.
+ *
+ * @author gaurs
+ *
+ */
+public class FieldTable extends AbstractMap<String, ComplexType> {
+
+	private static final String[] NO_NAMES = new String[0];
+	private static final ComplexType[] NO_TYPES = new ComplexType[0];
+
+	private final String[] names;
+	private final ComplexType[] types;
+
+	public FieldTable(Map<String, ComplexType> fields) {
+		if (fields.isEmpty()) {
+			names = NO_NAMES;
+			types = NO_TYPES;
+			return;
+		}
+
+		names = new String[fields.size()];
+		types = new ComplexType[fields.size()];
+
+		int index = 0;
+		for (Entry<String, ComplexType> field : fields.entrySet()) {
+			names[index] = field.getKey();
+			types[index] = field.getValue();
+			index++;
+		}
+	}
+
+	@Override
+	public int size() {
+		return names.length;
+	}
+
+	@Override
+	public ComplexType get(Object name) {
+		int index = indexOf(name);
+		return index < 0 ? null : types[index];
+	}
+
+	@Override
+	public boolean containsKey(Object name) {
+		return indexOf(name) >= 0;
+	}
+
+	private int indexOf(Object name) {
+		for (int index = 0; index < names.length; index++) {
+			if (names[index].equals(name)) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public Set<Entry<String, ComplexType>> entrySet() {
+		return new AbstractSet<Entry<String, ComplexType>>() {
+
+			@Override
+			public Iterator<Entry<String, ComplexType>> iterator() {
+				return new Iterator<Entry<String, ComplexType>>() {
+					private int index;
+
+					@Override
+					public boolean hasNext() {
+						return index < names.length;
+					}
+
+					@Override
+					public Entry<String, ComplexType> next() {
+						if (index >= names.length) {
+							throw new NoSuchElementException();
+						}
+						Entry<String, ComplexType> entry = new SimpleImmutableEntry<>(names[index], types[index]);
+						index++;
+						return entry;
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return names.length;
+			}
+		};
+	}
+}
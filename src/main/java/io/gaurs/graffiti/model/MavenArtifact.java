@@ -0,0 +1,76 @@
+package io.gaurs.graffiti.model;
+
+/**
+ * The maven details of an artifact found on the class path; a jar may embed
+ * many of them ex: a fat jar or a shaded jar
+ *
+ * @author gaurs
+ *
+ */
+public class MavenArtifact {
+
+	// path of the class path entry the artifact is found in
+	private final String source;
+
+	private String group;
+	private String artifactId;
+	private String version;
+
+	private String javaVersion;
+	private int dependenciesCount;
+
+	public MavenArtifact(String source) {
+		this.source = source;
+	}
+
+	public String getSource() {
+		return source;
+	}
+
+	public String getGroup() {
+		return group;
+	}
+
+	public void setGroup(String group) {
+		this.group = group;
+	}
+
+	public String getArtifactId() {
+		return artifactId;
+	}
+
+	public void setArtifactId(String artifactId) {
+		this.artifactId = artifactId;
+	}
+
+	public String getVersion() {
+		return version;
+	}
+
+	public void setVersion(String version) {
+		this.version = version;
+	}
+
+	public String getJavaVersion() {
+		return javaVersion;
+	}
+
+	public void setJavaVersion(String javaVersion) {
+		this.javaVersion = javaVersion;
+	}
+
+	public int getDependenciesCount() {
+		return dependenciesCount;
+	}
+
+	public void setDependenciesCount(int dependenciesCount) {
+		this.dependenciesCount = dependenciesCount;
+	}
+
+	/**
+	 * @return ex: commons-io:commons-io:2.5
+	 */
+	public String getCoordinates() {
+		return group + ":" + artifactId + ":" + version;
+	}
+}
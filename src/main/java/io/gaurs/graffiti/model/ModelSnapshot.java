@@ -0,0 +1,530 @@
+package io.gaurs.graffiti.model;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import io.gaurs.graffiti.bytecode.MethodDescriptor;
+import io.gaurs.graffiti.classpath.ClassPath;
+import io.gaurs.graffiti.classpath.ClassSource;
+import io.gaurs.graffiti.config.RuntimeConfigurator;
+
+/**
+ * The analysed model of a class path persisted as a compact binary file : the
+ * ComplexTypeCache, the ExceptionalScenarios, the jar statistics and the maven
+ * details of the RuntimeConfigurator. The snapshot is keyed by the SHA-256 of
+ * the class path entries, hence a later run on the same jars restores the
+ * model instead of parsing and analysing the jars again. Every class refers to
+ * its class path entry by the index of the same.
+ *
+ * Every string is stored once in a string table at the start of the file and
+ * referred to by its index. The types of the cache are written first followed
+ * by their fields and methods, so that a field of a type in the cache is
+ * restored as a reference to the very same instance. The snapshot is read
+ * through a memory mapped buffer.
+ *
+ * The order in which the parser added the classes to the cache (and the
+ * analyzer removed the ones that could not be read) is replayed on restore;
+ * the iteration order of the cache, hence the order of the classes on the
+ * index page, stays the same as that of the run that wrote the snapshot.
+ *
+ * @author gaurs
+ *
+ */
+public class ModelSnapshot {
+
+	private static final int MAGIC = 0x47524653;
+	private static final int VERSION = 6;
+
+	private static final int NULL = -1;
+
+	// the flags of a type
+	private static final int PRIMITIVE = 1;
+	private static final int GENERIC = 1 << 1;
+	private static final int ARRAY = 1 << 2;
+	private static final int INTERFACE = 1 << 3;
+	private static final int ABSTRACT = 1 << 4;
+	private static final int EXCLUDED = 1 << 5;
+
+	// a field refers to a type in the cache or to a type of its own
+	private static final int CACHED_TYPE = 0;
+	private static final int INLINE_TYPE = 1;
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private ModelSnapshot() {
+
+	}
+
+	/**
+	 * @param classPath
+	 * @return the SHA-256 of the contents of the class path entries along with
+	 *         the documented ones and the ClassFilter
+	 * @throws IOException
+	 */
+	public static String getKey(ClassPath classPath) throws IOException {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+
+			for (ClassSource source : classPath.getSources()) {
+				source.digest(digest);
+
+				// the statistics are those of the documented entries
+				digest.update((byte) (classPath.isDocumented(source) ? 1 : 0));
+			}
+
+			// the excluded classes are not analysed
+			digest.update(RuntimeConfigurator.getConfig().getClassFilter().toString().getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) (RuntimeConfigurator.getConfig().isFoldInnerClasses() ? 1 : 0));
+
+			byte[] hash = digest.digest();
+			char[] key = new char[hash.length * 2];
+			for (int index = 0; index < hash.length; index++) {
+				key[index * 2] = HEX[(hash[index] >> 4) & 0xF];
+				key[index * 2 + 1] = HEX[hash[index] & 0xF];
+			}
+			return new String(key);
+		} catch (NoSuchAlgorithmException exception) {
+			// every java platform is required to support SHA-256
+			throw new IllegalStateException(exception);
+		}
+	}
+
+	/**
+	 * Write the current model to the given file. The same is written to a
+	 * temporary file first and then moved in place.
+	 *
+	 * @param file
+	 * @param parsedClasses
+	 *            the classes in the order added to the cache by the parser
+	 * @param classPath
+	 * @throws IOException
+	 */
+	public static void save(File file, List<String> parsedClasses, ClassPath classPath) throws IOException {
+		Map<String, Integer> strings = new LinkedHashMap<>();
+
+		// the body is written first to collect the strings
+		ByteArrayOutputStream body = new ByteArrayOutputStream(64 * 1024);
+		DataOutputStream output = new DataOutputStream(body);
+		writeModel(output, parsedClasses, classPath, strings);
+		output.flush();
+
+		Path temporary = Files.createTempFile(file.getAbsoluteFile().getParentFile().toPath(), file.getName(), ".tmp");
+		try {
+			try (OutputStream stream = Files.newOutputStream(temporary);
+					DataOutputStream header = new DataOutputStream(new BufferedOutputStream(stream))) {
+				header.writeInt(MAGIC);
+				header.writeInt(VERSION);
+
+				header.writeInt(strings.size());
+				for (String string : strings.keySet()) {
+					byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+					header.writeInt(bytes.length);
+					header.write(bytes);
+				}
+
+				body.writeTo(header);
+			}
+
+			Files.move(temporary, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	private static void writeModel(DataOutputStream output, List<String> parsedClasses, ClassPath classPath,
+			Map<String, Integer> strings) throws IOException {
+		RuntimeConfigurator config = RuntimeConfigurator.getConfig();
+
+		// jar statistics and maven details
+		output.writeInt(config.getClassesCount());
+		output.writeInt(config.getInterfaceCount());
+		output.writeInt(config.getAbstractClassCount());
+		output.writeInt(intern(config.getGroup(), strings));
+		output.writeInt(intern(config.getArtifactId(), strings));
+		output.writeInt(intern(config.getVersion(), strings));
+		output.writeInt(intern(config.getJavaVersion(), strings));
+		output.writeInt(config.getDependenciesCount());
+
+		output.writeInt(config.getArtifacts().size());
+		for (MavenArtifact artifact : config.getArtifacts()) {
+			output.writeInt(intern(artifact.getSource(), strings));
+			output.writeInt(intern(artifact.getGroup(), strings));
+			output.writeInt(intern(artifact.getArtifactId(), strings));
+			output.writeInt(intern(artifact.getVersion(), strings));
+			output.writeInt(intern(artifact.getJavaVersion(), strings));
+			output.writeInt(artifact.getDependenciesCount());
+		}
+
+		output.writeInt(parsedClasses.size());
+		for (String className : parsedClasses) {
+			output.writeInt(intern(className, strings));
+		}
+
+		// the types in the cache; the fields may refer to any of them
+		List<ComplexType> complexTypes = new ArrayList<>(ComplexTypeCache.getComplexTypeCache().values());
+		output.writeInt(complexTypes.size());
+		for (ComplexType complexType : complexTypes) {
+			writeType(output, complexType, strings);
+			output.writeInt(classPath.getSources().indexOf(complexType.getSource()));
+			output.writeInt(null != complexType.getEnclosingType()
+					? intern(complexType.getEnclosingType().getFullyQualifiedName(), strings) : NULL);
+		}
+
+		for (ComplexType complexType : complexTypes) {
+			writeMembers(output, complexType, strings);
+		}
+
+		ExceptionalScenarios scenarios = ExceptionalScenarios.getInstance();
+		output.writeInt(scenarios.size());
+		for (int index = 0; index < scenarios.size(); index++) {
+			for (String detail : scenarios.getDetails(index)) {
+				output.writeInt(intern(detail, strings));
+			}
+		}
+	}
+
+	private static void writeType(DataOutputStream output, ComplexType complexType, Map<String, Integer> strings)
+			throws IOException {
+		int flags = (complexType.isPrimitive() ? PRIMITIVE : 0) | (complexType.isGeneric() ? GENERIC : 0)
+				| (complexType.isArray() ? ARRAY : 0) | (complexType.isInterface() ? INTERFACE : 0)
+				| (complexType.isAbstract() ? ABSTRACT : 0) | (complexType.isExcluded() ? EXCLUDED : 0);
+
+		output.writeInt(intern(complexType.getName(), strings));
+		output.writeInt(intern(complexType.getFullyQualifiedName(), strings));
+		output.writeByte(flags);
+		output.writeLong(complexType.getEntryCrc());
+		output.writeLong(complexType.getEntrySize());
+	}
+
+	private static void writeMembers(DataOutputStream output, ComplexType complexType, Map<String, Integer> strings)
+			throws IOException {
+		Map<String, ComplexType> attributes = complexType.getAttributes();
+		if (null == attributes) {
+			output.writeInt(NULL);
+		} else {
+			output.writeInt(attributes.size());
+			for (Entry<String, ComplexType> attribute : attributes.entrySet()) {
+				output.writeInt(intern(attribute.getKey(), strings));
+
+				ComplexType type = attribute.getValue();
+				if (type == ComplexTypeCache.getComplexTypeCache().get(type.getFullyQualifiedName())) {
+					output.writeByte(CACHED_TYPE);
+					output.writeInt(intern(type.getFullyQualifiedName(), strings));
+				} else {
+					output.writeByte(INLINE_TYPE);
+					writeType(output, type, strings);
+					writeMembers(output, type, strings);
+				}
+			}
+		}
+
+		List<MethodDescriptor> methods = complexType.getMethodDetails();
+		if (null == methods) {
+			output.writeInt(NULL);
+		} else {
+			output.writeInt(methods.size());
+			for (MethodDescriptor method : methods) {
+				output.writeInt(method.getModifiers());
+				output.writeInt(intern(method.getName(), strings));
+				output.writeInt(intern(method.getReturnType(), strings));
+				output.writeInt(method.getParameterTypes().size());
+				for (String parameterType : method.getParameterTypes()) {
+					output.writeInt(intern(parameterType, strings));
+				}
+			}
+		}
+	}
+
+	private static int intern(String string, Map<String, Integer> strings) {
+		if (null == string) {
+			return NULL;
+		}
+
+		Integer index = strings.get(string);
+		if (null == index) {
+			index = strings.size();
+			strings.put(string, index);
+		}
+		return index;
+	}
+
+	/**
+	 * Restore the model from the given file into the (empty) ComplexTypeCache,
+	 * ExceptionalScenarios and RuntimeConfigurator
+	 *
+	 * @param file
+	 * @param classPath
+	 *            the class path the snapshot is keyed by
+	 * @return false if there is no snapshot
+	 * @throws IOException
+	 *             if the snapshot is not readable or is malformed; the model
+	 *             is left empty
+	 */
+	public static boolean load(File file, ClassPath classPath) throws IOException {
+		if (!file.isFile()) {
+			return false;
+		}
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				throw new IOException("Unknown snapshot format : " + file.getPath());
+			}
+
+			String[] strings = new String[count(buffer)];
+			for (int index = 0; index < strings.length; index++) {
+				byte[] bytes = new byte[count(buffer)];
+				buffer.get(bytes);
+				strings[index] = new String(bytes, StandardCharsets.UTF_8);
+			}
+
+			readModel(buffer, strings, classPath);
+			return true;
+		} catch (IOException exception) {
+			// the model may be restored in part by now
+			clear();
+			throw exception;
+		} catch (RuntimeException exception) {
+			// ex: BufferUnderflowException or IndexOutOfBoundsException
+			clear();
+			throw new IOException("Malformed snapshot : " + file.getPath(), exception);
+		}
+	}
+
+	private static void readModel(MappedByteBuffer buffer, String[] strings, ClassPath classPath)
+			throws IOException {
+		RuntimeConfigurator config = RuntimeConfigurator.getConfig();
+
+		config.setClassesCount(buffer.getInt());
+		config.setInterfaceCount(buffer.getInt());
+		config.setAbstractClassCount(buffer.getInt());
+		config.setGroup(string(buffer, strings));
+		config.setArtifactId(string(buffer, strings));
+		config.setVersion(string(buffer, strings));
+		config.setJavaVersion(string(buffer, strings));
+		config.setDependenciesCount(buffer.getInt());
+
+		int artifactCount = count(buffer);
+		List<MavenArtifact> artifacts = new ArrayList<>(artifactCount);
+		for (int index = 0; index < artifactCount; index++) {
+			MavenArtifact artifact = new MavenArtifact(string(buffer, strings));
+			artifact.setGroup(string(buffer, strings));
+			artifact.setArtifactId(string(buffer, strings));
+			artifact.setVersion(string(buffer, strings));
+			artifact.setJavaVersion(string(buffer, strings));
+			artifact.setDependenciesCount(buffer.getInt());
+			artifacts.add(artifact);
+		}
+		config.setArtifacts(artifacts);
+
+		ComplexTypeCache cache = ComplexTypeCache.getComplexTypeCache();
+
+		String[] parsedClasses = new String[count(buffer)];
+		for (int index = 0; index < parsedClasses.length; index++) {
+			parsedClasses[index] = string(buffer, strings);
+		}
+
+		int typeCount = count(buffer);
+		List<ComplexType> complexTypes = new ArrayList<>(typeCount);
+		Map<String, ComplexType> byName = new HashMap<>();
+		Map<ComplexType, String> enclosingTypes = new LinkedHashMap<>();
+		for (int index = 0; index < typeCount; index++) {
+			ComplexType complexType = readType(buffer, strings);
+
+			// the documented entries are part of the key
+			ClassSource source = classPath.getSources().get(buffer.getInt());
+			complexType.setSource(source);
+			complexType.setDocumented(classPath.isDocumented(source) && !complexType.isExcluded());
+			complexTypes.add(complexType);
+			byName.put(complexType.getFullyQualifiedName(), complexType);
+
+			String enclosingType = string(buffer, strings);
+			if (null != enclosingType) {
+				enclosingTypes.put(complexType, enclosingType);
+			}
+		}
+
+		// the nested classes are shown on the pages of their enclosing classes
+		for (Entry<ComplexType, String> nestedType : enclosingTypes.entrySet()) {
+			ComplexType enclosingType = byName.get(nestedType.getValue());
+			if (null == enclosingType) {
+				throw new IOException("Unknown enclosing type of : " + nestedType.getKey().getFullyQualifiedName());
+			}
+			nestedType.getKey().setEnclosingType(enclosingType);
+			enclosingType.addNestedType(nestedType.getKey());
+		}
+
+		// replay the parser followed by the removal of the classes that could
+		// not be read
+		for (String className : parsedClasses) {
+			ComplexType complexType = byName.get(className);
+			cache.put(className, null != complexType ? complexType : new ComplexType().setFullyQualifiedName(className));
+		}
+		for (String className : parsedClasses) {
+			if (!byName.containsKey(className)) {
+				cache.remove(className);
+			}
+		}
+
+		if (cache.size() != byName.size()) {
+			throw new IOException("The types do not match the parsed classes");
+		}
+
+		for (ComplexType complexType : complexTypes) {
+			readMembers(buffer, strings, complexType, byName);
+		}
+
+		ExceptionalScenarios scenarios = ExceptionalScenarios.getInstance();
+		int scenarioCount = count(buffer);
+		for (int index = 0; index < scenarioCount; index++) {
+			scenarios.createException(string(buffer, strings), string(buffer, strings), string(buffer, strings));
+		}
+
+		if (buffer.hasRemaining()) {
+			throw new IOException("Unexpected data at the end of the snapshot");
+		}
+	}
+
+	private static ComplexType readType(MappedByteBuffer buffer, String[] strings) {
+		ComplexType complexType = new ComplexType();
+		complexType.setName(string(buffer, strings));
+		complexType.setFullyQualifiedName(string(buffer, strings));
+
+		int flags = buffer.get();
+		complexType.setPrimitive((flags & PRIMITIVE) != 0);
+		complexType.setGeneric((flags & GENERIC) != 0);
+		complexType.setArray((flags & ARRAY) != 0);
+		complexType.setInterface((flags & INTERFACE) != 0);
+		complexType.setAbstract((flags & ABSTRACT) != 0);
+		complexType.setExcluded((flags & EXCLUDED) != 0);
+
+		complexType.setEntryCrc(buffer.getLong());
+		complexType.setEntrySize(buffer.getLong());
+		return complexType;
+	}
+
+	private static void readMembers(MappedByteBuffer buffer, String[] strings, ComplexType complexType,
+			Map<String, ComplexType> byName) throws IOException {
+		int attributeCount = buffer.getInt();
+		if (NULL != attributeCount) {
+			checkCount(buffer, attributeCount);
+
+			// same as StructureAnalyzer.populateFieldsData()
+			HashMap<String, ComplexType> attributes = new HashMap<>();
+			for (int index = 0; index < attributeCount; index++) {
+				String fieldName = string(buffer, strings);
+
+				ComplexType type = null;
+				if (CACHED_TYPE == buffer.get()) {
+					type = byName.get(string(buffer, strings));
+					if (null == type) {
+						throw new IOException("Unknown type referred to by : " + complexType.getFullyQualifiedName());
+					}
+				} else {
+					type = readType(buffer, strings);
+					readMembers(buffer, strings, type, byName);
+					type = getPlaceholder(type);
+				}
+				attributes.put(fieldName, type);
+			}
+			complexType.setAttributes(new FieldTable(attributes));
+		}
+
+		int methodCount = buffer.getInt();
+		if (NULL != methodCount) {
+			checkCount(buffer, methodCount);
+
+			List<MethodDescriptor> methods = new ArrayList<>(methodCount);
+			for (int index = 0; index < methodCount; index++) {
+				int modifiers = buffer.getInt();
+				String name = string(buffer, strings);
+				String returnType = string(buffer, strings);
+
+				int parameterCount = count(buffer);
+				List<String> parameterTypes = new ArrayList<>(parameterCount);
+				for (int parameter = 0; parameter < parameterCount; parameter++) {
+					parameterTypes.add(string(buffer, strings));
+				}
+				methods.add(new MethodDescriptor(modifiers, name, returnType, parameterTypes));
+			}
+			complexType.setMethodDetails(methods);
+		}
+	}
+
+	/**
+	 * @param type
+	 * @return the shared read-only placeholder for a type outside the jar
+	 */
+	private static ComplexType getPlaceholder(ComplexType type) {
+		SymbolTable symbolTable = SymbolTable.getSymbolTable();
+		if (type.isPrimitive()) {
+			return symbolTable.getPrimitive(type.getName());
+		} else if (type.isArray()) {
+			return symbolTable.getArray(type.getName());
+		} else if (type.isGeneric()) {
+			return symbolTable.getExternal(type.getName(), type.getFullyQualifiedName());
+		}
+		return type;
+	}
+
+	/**
+	 * @param buffer
+	 * @return the number of the entries following
+	 * @throws IOException
+	 *             if the same is negative or more than the bytes left; i.e.
+	 *             before anything is allocated for the entries
+	 */
+	private static int count(MappedByteBuffer buffer) throws IOException {
+		int count = buffer.getInt();
+		checkCount(buffer, count);
+		return count;
+	}
+
+	private static void checkCount(MappedByteBuffer buffer, int count) throws IOException {
+		if (count < 0 || count > buffer.remaining()) {
+			throw new IOException("Malformed count in the snapshot : " + count);
+		}
+	}
+
+	private static String string(MappedByteBuffer buffer, String[] strings) {
+		int index = buffer.getInt();
+		return NULL == index ? null : strings[index];
+	}
+
+	private static void clear() {
+		ComplexTypeCache.getComplexTypeCache().clear();
+		ExceptionalScenarios.getInstance().clear();
+
+		RuntimeConfigurator config = RuntimeConfigurator.getConfig();
+		config.setClassesCount(0);
+		config.setInterfaceCount(0);
+		config.setAbstractClassCount(0);
+		config.setGroup(null);
+		config.setArtifactId(null);
+		config.setVersion(null);
+		config.setJavaVersion(null);
+		config.setDependenciesCount(0);
+		config.setArtifacts(Collections.emptyList());
+	}
+}
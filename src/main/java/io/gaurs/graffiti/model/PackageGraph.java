@@ -0,0 +1,116 @@
+package io.gaurs.graffiti.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The documented classes collapsed into their packages : an edge from a
+ * package to every other package the fields of its classes refer to, weighed
+ * by the number of such fields. The fields of the nested classes shown on the
+ * page of a class count towards the package of the same.
+ *
+ * The graph is built in a single pass over the fields of the documented
+ * classes; the packages the edges lead to need not have pages of their own ex:
+ * the packages of the class path entries that are not documented.
+ *
+ * @author gaurs
+ *
+ */
+public class PackageGraph {
+
+	/**
+	 * Name of the default package
+	 */
+	public static final String DEFAULT_PACKAGE = "";
+
+	// documented classes of every package; sorted by name
+	private final Map<String, List<ComplexType>> classes = new TreeMap<>();
+
+	// number of fields referring to the classes of the inner key; keyed by
+	// the package of the class declaring the same
+	private final Map<String, Map<String, Integer>> dependencies = new TreeMap<>();
+
+	// the reverse of the above
+	private final Map<String, Map<String, Integer>> dependents = new TreeMap<>();
+
+	public PackageGraph(ComplexTypeCache cache) {
+		for (ComplexType complexType : cache.getDocumentedTypes()) {
+			String packageName = getPackageName(complexType);
+			classes.computeIfAbsent(packageName, key -> new ArrayList<>()).add(complexType);
+
+			if (null == complexType.getPageAttributes()) {
+				continue;
+			}
+
+			for (ComplexType target : complexType.getPageAttributes().values()) {
+				// the placeholders of the primitive, array and external types
+				// are not part of any package of the class path
+				if (target != cache.get(target.getFullyQualifiedName())) {
+					continue;
+				}
+
+				String targetPackage = getPackageName(target);
+				if (!packageName.equals(targetPackage)) {
+					dependencies.computeIfAbsent(packageName, key -> new TreeMap<>()).merge(targetPackage, 1,
+							Integer::sum);
+					dependents.computeIfAbsent(targetPackage, key -> new TreeMap<>()).merge(packageName, 1,
+							Integer::sum);
+				}
+			}
+		}
+
+		// the order of the pages does not depend upon that of the cache
+		Comparator<ComplexType> byName = Comparator.comparing(ComplexType::getFullyQualifiedName);
+		classes.values().forEach(complexTypes -> complexTypes.sort(byName));
+	}
+
+	/**
+	 * @return the packages having documented classes; sorted by name
+	 */
+	public Set<String> getPackages() {
+		return classes.keySet();
+	}
+
+	/**
+	 * @param packageName
+	 * @return the documented classes of the given package sorted by name;
+	 *         empty if it has none
+	 */
+	public List<ComplexType> getClasses(String packageName) {
+		return classes.getOrDefault(packageName, Collections.emptyList());
+	}
+
+	/**
+	 * @param packageName
+	 * @return the packages referred to by the fields of the given package
+	 *         along with the number of such fields; sorted by name
+	 */
+	public Map<String, Integer> getDependencies(String packageName) {
+		return dependencies.getOrDefault(packageName, Collections.emptyMap());
+	}
+
+	/**
+	 * @param packageName
+	 * @return the packages whose fields refer to the given package along with
+	 *         the number of such fields; sorted by name
+	 */
+	public Map<String, Integer> getDependents(String packageName) {
+		return dependents.getOrDefault(packageName, Collections.emptyMap());
+	}
+
+	/**
+	 * @param complexType
+	 * @return ex: io.gaurs.graffiti.model ; {@link #DEFAULT_PACKAGE} for the
+	 *         classes of the default package
+	 */
+	public static String getPackageName(ComplexType complexType) {
+		String fullyQualifiedName = complexType.getFullyQualifiedName();
+		return fullyQualifiedName.lastIndexOf('.') > 0
+				? fullyQualifiedName.substring(0, fullyQualifiedName.lastIndexOf('.')) : DEFAULT_PACKAGE;
+	}
+}
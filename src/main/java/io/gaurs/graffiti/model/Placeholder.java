@@ -0,0 +1,133 @@
+package io.gaurs.graffiti.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import io.gaurs.graffiti.bytecode.MethodDescriptor;
+import io.gaurs.graffiti.classpath.ClassSource;
+
+/**
+ * A type outside the jar as shared by the {@link SymbolTable} across all the
+ * fields of its type. The same is read-only; every setter throws an
+ * UnsupportedOperationException as a change would show on every class
+ * referring to the type.
+ *
+ * @author gaurs
+ *
+ */
+final class Placeholder extends ComplexType {
+
+	Placeholder(String name, String fullyQualifiedName, boolean primitive, boolean array, boolean generic) {
+		super.setName(name);
+		super.setFullyQualifiedName(fullyQualifiedName);
+		super.setPrimitive(primitive);
+		super.setArray(array);
+		super.setGeneric(generic);
+
+		// a primitive type has no members at all
+		if (!primitive) {
+			super.setAttributes(Collections.emptyMap());
+			super.setMethodDetails(Collections.emptyList());
+		}
+	}
+
+	@Override
+	public void setMethodDetails(List<MethodDescriptor> methodDetails) {
+		throw readOnly();
+	}
+
+	@Override
+	public ComplexType setName(String name) {
+		throw readOnly();
+	}
+
+	@Override
+	public ComplexType setFullyQualifiedName(String fullyQualifiedName) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setAttributes(Map<String, ComplexType> attributes) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setPrimitive(boolean isPrimitive) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setGeneric(boolean isGeneric) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setArray(boolean isArray) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setInterface(boolean isInterface) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setAbstract(boolean isAbstract) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setEntryCrc(long entryCrc) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setEntrySize(long entrySize) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setSource(ClassSource source) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setDocumented(boolean documented) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setExcluded(boolean excluded) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setEnclosingType(ComplexType enclosingType) {
+		throw readOnly();
+	}
+
+	@Override
+	public void addNestedType(ComplexType nestedType) {
+		throw readOnly();
+	}
+
+	@Override
+	public void removeNestedType(ComplexType nestedType) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setDotSource(byte[] dotSource) {
+		throw readOnly();
+	}
+
+	@Override
+	public void setImageMap(String imageMap) {
+		throw readOnly();
+	}
+
+	private UnsupportedOperationException readOnly() {
+		return new UnsupportedOperationException("The placeholder is shared : " + getFullyQualifiedName());
+	}
+}
@@ -0,0 +1,77 @@
+package io.gaurs.graffiti.model;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shares the names and the placeholder types across all the classes of a jar.
+ * Every name, descriptor and signature read from the class files is interned
+ * so that one instance exists per distinct string. The types that are not
+ * part of the jar (primitives, arrays and the external or generic types) are
+ * represented by a single read-only {@link Placeholder} per type instead of a
+ * new ComplexType for every field. Used by the analysis threads concurrently.
+ *
+ * @author gaurs
+ *
+ */
+public class SymbolTable {
+
+	private static final SymbolTable INSTANCE = new SymbolTable();
+
+	private final ConcurrentHashMap<String, String> symbols = new ConcurrentHashMap<>();
+
+	// keyed by the kind of the placeholder followed by its names
+	private final ConcurrentHashMap<String, ComplexType> placeholders = new ConcurrentHashMap<>();
+
+	private SymbolTable() {
+
+	}
+
+	public static SymbolTable getSymbolTable() {
+		return INSTANCE;
+	}
+
+	/**
+	 * @param symbol
+	 * @return the shared instance of the given string
+	 */
+	public String intern(String symbol) {
+		if (null == symbol) {
+			return null;
+		}
+
+		String interned = symbols.putIfAbsent(symbol, symbol);
+		return null != interned ? interned : symbol;
+	}
+
+	/**
+	 * @param name
+	 *            ex: int
+	 * @return the placeholder of a primitive type
+	 */
+	public ComplexType getPrimitive(String name) {
+		return placeholders.computeIfAbsent("P" + name,
+				key -> new Placeholder(intern(name), intern(name), true, false, false));
+	}
+
+	/**
+	 * @param simpleName
+	 *            ex: String[]
+	 * @return the placeholder of an array type
+	 */
+	public ComplexType getArray(String simpleName) {
+		return placeholders.computeIfAbsent("A" + simpleName,
+				key -> new Placeholder(intern(simpleName), intern(simpleName), false, true, false));
+	}
+
+	/**
+	 * @param erasure
+	 *            ex: java.util.List
+	 * @param genericName
+	 *            ex: java.util.List&amp;lt;java.lang.String&amp;gt;
+	 * @return the placeholder of a generic type or a type outside the jar
+	 */
+	public ComplexType getExternal(String erasure, String genericName) {
+		return placeholders.computeIfAbsent("G" + erasure + " " + genericName,
+				key -> new Placeholder(intern(erasure), intern(genericName), false, false, true));
+	}
+}
@@ -0,0 +1,131 @@
+package io.gaurs.graffiti.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The classes of the ComplexTypeCache connected by their fields : an edge
+ * from every class to the type of each of its fields. The graph is used to
+ * find the classes within a number of hops of a class in either direction
+ * ex: with two hops the diagram of a class shows the classes referring to it
+ * and the ones they refer to.
+ *
+ * The incoming edges are collected in a single pass over the cache when the
+ * graph is built. The neighbours of a class (outgoing followed by incoming)
+ * are merged the first time the same is reached and shared by every later
+ * search, hence a class reached from many others is expanded once. Only the
+ * classes of the cache are expanded; the placeholders of the primitive,
+ * array and external types are shared by all the fields of a type and have
+ * no neighbours of their own. Used by the dot threads concurrently.
+ *
+ * @author gaurs
+ *
+ */
+public class TypeGraph {
+
+	private static final ComplexType[] NO_TYPES = new ComplexType[0];
+
+	private final ComplexTypeCache cache;
+
+	// classes having a field of the key type; sorted by name
+	private final Map<ComplexType, List<ComplexType>> incoming = new HashMap<>();
+
+	// memoized neighbours of every class reached so far
+	private final Map<ComplexType, ComplexType[]> neighbours = new ConcurrentHashMap<>();
+
+	public TypeGraph(ComplexTypeCache cache) {
+		this.cache = cache;
+
+		for (ComplexType complexType : cache.values()) {
+			for (ComplexType target : getOutgoing(complexType)) {
+				if (target != complexType) {
+					incoming.computeIfAbsent(target, key -> new ArrayList<>()).add(complexType);
+				}
+			}
+		}
+
+		// the order of the search does not depend upon that of the cache
+		Comparator<ComplexType> byName = Comparator.comparing(ComplexType::getFullyQualifiedName);
+		incoming.values().forEach(sources -> sources.sort(byName));
+	}
+
+	/**
+	 * Breadth first search from the given class along the fields in either
+	 * direction. The nested classes shown on the page of the class are
+	 * searched from as well. The search stops once maxNodes classes are
+	 * found; the ones nearer to the class are found first.
+	 *
+	 * @param complexType
+	 * @param depth
+	 *            number of hops
+	 * @param maxNodes
+	 * @return the classes found in the order of the search; neither the class
+	 *         nor its nested classes are part of the same
+	 */
+	public List<ComplexType> getNeighbourhood(ComplexType complexType, int depth, int maxNodes) {
+		Set<ComplexType> visited = new LinkedHashSet<>();
+		visited.add(complexType);
+		visited.addAll(complexType.getNestedTypes());
+		int origin = visited.size();
+
+		List<ComplexType> frontier = new ArrayList<>(visited);
+		for (int hop = 0; hop < depth && !frontier.isEmpty(); hop++) {
+			List<ComplexType> next = new ArrayList<>();
+			for (ComplexType node : frontier) {
+				for (ComplexType neighbour : getNeighbours(node)) {
+					if (visited.size() - origin >= maxNodes) {
+						return new ArrayList<>(visited).subList(origin, visited.size());
+					}
+					if (visited.add(neighbour)) {
+						next.add(neighbour);
+					}
+				}
+			}
+			frontier = next;
+		}
+		return new ArrayList<>(visited).subList(origin, visited.size());
+	}
+
+	/**
+	 * @param complexType
+	 * @return true if the given type is a class of the cache and not a
+	 *         placeholder
+	 */
+	public boolean contains(ComplexType complexType) {
+		return null != complexType && complexType == cache.get(complexType.getFullyQualifiedName());
+	}
+
+	private ComplexType[] getNeighbours(ComplexType complexType) {
+		return neighbours.computeIfAbsent(complexType, key -> {
+			Set<ComplexType> merged = new LinkedHashSet<>(getOutgoing(key));
+			merged.addAll(incoming.getOrDefault(key, Collections.emptyList()));
+			merged.remove(key);
+			return merged.isEmpty() ? NO_TYPES : merged.toArray(NO_TYPES);
+		});
+	}
+
+	/**
+	 * @param complexType
+	 * @return the classes of the cache referred to by the fields of the given
+	 *         class in the order of the fields
+	 */
+	private Collection<ComplexType> getOutgoing(ComplexType complexType) {
+		Set<ComplexType> targets = new LinkedHashSet<>();
+		if (null != complexType.getAttributes()) {
+			for (ComplexType target : complexType.getAttributes().values()) {
+				if (contains(target)) {
+					targets.add(target);
+				}
+			}
+		}
+		return targets;
+	}
+}
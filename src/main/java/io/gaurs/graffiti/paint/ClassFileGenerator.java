@@ -3,179 +3,206 @@ package io.gaurs.graffiti.paint;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Method;
+import java.io.Reader;
+import java.io.Writer;
 import java.lang.reflect.Modifier;
-import java.lang.reflect.Type;
-import java.util.Arrays;
-import java.util.Iterator;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import org.apache.commons.io.IOUtils;
 import org.pmw.tinylog.Logger;
 
+import io.gaurs.graffiti.bytecode.MethodDescriptor;
+import io.gaurs.graffiti.config.ImageFormat;
 import io.gaurs.graffiti.config.RuntimeConfigurator;
 import io.gaurs.graffiti.model.ComplexType;
 import io.gaurs.graffiti.model.ComplexTypeCache;
+import io.gaurs.graffiti.paint.ClassPageTemplate.Slot;
 
-public class ClassFileGenerator extends HtmlFileGenerator {
+/**
+ * Generates a .html page for every class. The page is streamed to the file
+ * slot by slot using the precompiled {@link ClassPageTemplate}; no DOM is built
+ * for the individual pages.
+ */
+public class ClassFileGenerator extends HtmlFileGenerator implements ComplexTypeGenerator {
+
+	/**
+	 * The compiled template; loaded on first use
+	 */
+	private ClassPageTemplate template;
 
 	@Override
 	public void paint() {
-		// Get the list of all the classes
-		Iterator<Entry<String, ComplexType>> iterator = ComplexTypeCache.getComplexTypeCache().entrySet().iterator();
-		iterator.forEachRemaining(entry -> paint(entry));
-	}
-
-	private void paint(Map.Entry<String, ComplexType> entry) {
-		if (null != entry && null != entry.getValue()) {
-			ComplexType complexType = entry.getValue();
-			String className = complexType.getFullyQualifiedName();
-
-			Logger.debug("Painting " + complexType.getFullyQualifiedName() + ".class");
-			Document classTemplate = null;
-			try {
-				InputStream stream = Thread.currentThread().getContextClassLoader()
-						.getResourceAsStream("template.html");
-
-				classTemplate = Jsoup.parse(stream, "utf-8", "");
-
-				// set the title
-				setTitleName(classTemplate, className);
-
-				// set the class name
-				setClassName(classTemplate, className);
-
-				// set package name
-				setPackageName(classTemplate, className);
-
-				// set attributes count
-				setAttributeCount(classTemplate,
-						null != complexType.getAttributes() ? complexType.getAttributes().size() : 0);
-
-				// set methods count
-				setMethodCount(classTemplate,
-						null != complexType.getMethodDetails() ? complexType.getMethodDetails().size() : 0);
-
-				// set the image
-				setDependencyMatrix(classTemplate, className);
+		// The template is parsed just once
+		ClassPageTemplate template = getTemplate();
+		if (null == template) {
+			return;
+		}
 
-				// populate the list of attributes
-				populateAttributeList(classTemplate, complexType.getAttributes());
+		// Get the list of all the documented classes
+		ComplexTypeCache.getComplexTypeCache().getDocumentedTypes().forEach(complexType -> paint(complexType, template));
+	}
 
-				// populate the list of methods
-				populateMethodsList(classTemplate, complexType.getMethodDetails());
+	@Override
+	public boolean paint(ComplexType complexType) {
+		ClassPageTemplate template = getTemplate();
+		return null != template && paint(complexType, template);
+	}
 
-				stream.close();
+	private synchronized ClassPageTemplate getTemplate() {
+		if (null == template) {
+			template = loadTemplate();
+		}
+		return template;
+	}
 
+	private ClassPageTemplate loadTemplate() {
+		InputStream stream = null;
+		try {
+			stream = Thread.currentThread().getContextClassLoader().getResourceAsStream("template.html");
+			return ClassPageTemplate.compile(stream);
+		} catch (IOException exception) {
+			Logger.error("Exeption occurred while loading html template file : ", exception);
+			return null;
+		} finally {
+			try {
+				if (null != stream) {
+					stream.close();
+				}
 			} catch (IOException exception) {
-				Logger.error("Exeption occurred while loading html template file : ", exception);
+				Logger.error("Exeption occurred while closing html template file : ", exception);
 			}
-
-			writeToFile(className, RuntimeConfigurator.getConfig().getOutputLocation(), classTemplate.html());
 		}
 	}
 
-	private void setPackageName(Document classTemplate, String className) {
-		Element packageName = classTemplate.getElementById("packageName");
-		String pkgName = className.lastIndexOf(".") > 0 ? className.substring(0, className.lastIndexOf(".")) : "";
-		packageName.text(pkgName);
+	private boolean paint(ComplexType complexType, ClassPageTemplate template) {
+		if (null == complexType) {
+			return false;
+		}
+
+		String className = complexType.getFullyQualifiedName();
+
+		Logger.debug("Painting " + complexType.getFullyQualifiedName() + ".class");
+
+		try (Writer writer = openWriter(className, RuntimeConfigurator.getConfig().getOutputLocation())) {
+			template.write(writer, (slot, slotWriter) -> writeSlot(slot, slotWriter, complexType));
+			return true;
+		} catch (IOException exception) {
+			Logger.error("Exception occurred while writing to file : " + className, exception);
+			return false;
+		}
 	}
 
-	private void setTitleName(Document classTemplate, String className) {
-		Element title = classTemplate.getElementsByTag("title").first();
-		title.text("Graffiti | " + className);
+	private void writeSlot(Slot slot, Writer writer, ComplexType complexType) throws IOException {
+		String className = complexType.getFullyQualifiedName();
+
+		switch (slot) {
+		case TITLE:
+			writer.write(escape("Graffiti | " + className));
+			break;
+		case CURRENT_CLASS:
+			writer.write(escape(className));
+			break;
+		case PACKAGE_NAME:
+			writer.write(escape(
+					className.lastIndexOf(".") > 0 ? className.substring(0, className.lastIndexOf(".")) : ""));
+			break;
+		case ATTRIBUTE_COUNT:
+			writer.write(String.valueOf(
+					null != complexType.getPageAttributes() ? complexType.getPageAttributes().size() : 0));
+			break;
+		case METHOD_COUNT:
+			writer.write(
+					String.valueOf(null != complexType.getPageMethods() ? complexType.getPageMethods().size() : 0));
+			break;
+		case DEPENDENCY_MATRIX:
+			writeDependencyMatrix(writer, complexType);
+			break;
+		case ATTRIBUTES:
+			// the members of the nested classes follow those of the class
+			writeAttributeList(writer, complexType.getPageAttributes());
+			break;
+		case METHODS:
+			writeMethodsList(writer, complexType.getPageMethods());
+			break;
+		}
 	}
 
-	private void populateMethodsList(Document classTemplate, List<Method> methodDetails) {
+	private void writeMethodsList(Writer writer, List<MethodDescriptor> methodDetails) throws IOException {
 		if (null != methodDetails && !methodDetails.isEmpty()) {
-			Element attributeTable = classTemplate.getElementById("methods");
-			Element tableBody = attributeTable.appendElement("tbody");
-			methodDetails.iterator().forEachRemaining(entry -> addMethodRow(entry, tableBody));
+			writer.write("<tbody>");
+			for (MethodDescriptor method : methodDetails) {
+				writeMethodRow(writer, method);
+			}
+			writer.write("</tbody>");
 		}
 	}
 
-	private void populateAttributeList(Document classTemplate, Map<String, ComplexType> attributes) {
-		if (null != attributes && null != attributes.entrySet() && !attributes.entrySet().isEmpty()) {
-			Element attributeTable = classTemplate.getElementById("attributes");
-			Element tableBody = attributeTable.appendElement("tbody");
-			attributes.entrySet().iterator().forEachRemaining(entry -> addAttributeRow(entry, tableBody));
+	private void writeAttributeList(Writer writer, Map<String, ComplexType> attributes) throws IOException {
+		if (null != attributes && !attributes.isEmpty()) {
+			writer.write("<tbody>");
+			for (Entry<String, ComplexType> entry : attributes.entrySet()) {
+				writeAttributeRow(writer, entry);
+			}
+			writer.write("</tbody>");
 		}
 	}
 
-	private void addMethodRow(Method method, Element tableBody) {
-		Element row = tableBody.appendElement("tr");
+	private void writeMethodRow(Writer writer, MethodDescriptor method) throws IOException {
+		int modifiers = method.getModifiers();
 
-		Element methodName = row.appendElement("td");
-		Element returnType = row.appendElement("td");
-		Element parameter = row.appendElement("td");
+		String rowClass = null;
+		if (Modifier.isPublic(modifiers)) {
+			rowClass = "success";
+		} else if (Modifier.isPrivate(modifiers)) {
+			rowClass = "danger";
+		} else if (Modifier.isAbstract(modifiers)) {
+			rowClass = "warning";
+		}
 
-		methodName.attr("border", "1");
-		returnType.attr("border", "1");
-		parameter.attr("border", "1");
+		writer.write(null != rowClass ? "<tr class=\"" + rowClass + "\">" : "<tr>");
 
-		if (Modifier.toString(method.getModifiers()).contains("public")) {
-			row.attr("class", "success");
-		} else if (Modifier.toString(method.getModifiers()).contains("private")) {
-			row.attr("class", "danger");
-		} else if (Modifier.toString(method.getModifiers()).contains("abstract")) {
-			row.attr("class", "warning");
+		// the types were decoded while analysing the class
+		if (!method.isMalformed()) {
+			writeCell(writer, method.getName());
+			writeCell(writer, method.getReturnType());
+			writeCell(writer, getParameterList(method.getParameterTypes()));
+		} else {
+			writer.write("<td border=\"1\" colspan=\"3\" align=\"center\" class=\"text-danger\">Method \"<strong>"
+					+ escape(method.getName()) + "</strong>\" could not be analysed as its signature is malformed</td>");
 		}
 
-		try {
-			methodName.text(method.getName());
-			returnType.text(method.getGenericReturnType().toString().replaceAll("class ", ""));
-			parameter.text(getParameterList(method.getGenericParameterTypes()));
-		} catch (Throwable exception) {
-			// The return type of the parameter can be a class/interface from
-			// another jar
-			Logger.debug("Exception occurred while loading method " + method.getName() + " of class "
-					+ method.getDeclaringClass().getName());
-			methodName.attr("colspan", "3");
-			methodName.attr("align", "center");
-			methodName.attr("class", "text-danger");
-			methodName.html(
-					"Method \"<strong>" + method.getName() + "</strong>\" could not be analysed as the class <strong>"
-							+ exception.getMessage().replaceAll("/", ".") + "</strong> is not present in current jar");
-
-			returnType.remove();
-			parameter.remove();
-		}
+		writer.write("</tr>");
+	}
+
+	private void writeCell(Writer writer, String text) throws IOException {
+		writer.write("<td border=\"1\">");
+		writer.write(escape(text));
+		writer.write("</td>");
 	}
 
-	private String getParameterList(Type[] genericParameterTypes) {
-		if (genericParameterTypes.length > 1) {
+	private String getParameterList(List<String> parameterTypes) {
+		if (parameterTypes.size() > 1) {
 			StringBuilder builder = new StringBuilder();
-			for (Type type : genericParameterTypes) {
-				builder.append(type.getTypeName() + "; ");
+			for (String type : parameterTypes) {
+				builder.append(type + "; ");
 			}
 
 			return builder.toString();
-		} else if (genericParameterTypes.length == 1) {
-			return genericParameterTypes[0].getTypeName();
+		} else if (parameterTypes.size() == 1) {
+			return parameterTypes.get(0);
 		}
 
 		return "";
 	}
 
-	private void addAttributeRow(Entry<String, ComplexType> entry, Element tableBody) {
+	private void writeAttributeRow(Writer writer, Entry<String, ComplexType> entry) throws IOException {
 
 		ComplexType complexType = entry.getValue();
 
-		Element row = tableBody.appendElement("tr");
-
-		Element firstColumn = row.appendElement("td");
-		firstColumn.attr("border", "1");
-		firstColumn.text(entry.getKey());
-
-		Element secondColumn = row.appendElement("td");
-		secondColumn.attr("border", "1");
-		Element link = secondColumn.appendElement("a");
-
 		String value = null;
 
 		if (complexType.isPrimitive() || complexType.isArray()) {
@@ -188,54 +215,54 @@ public class ClassFileGenerator extends HtmlFileGenerator {
 		value = value.replaceAll("&gt;", ">");
 		value = value.replaceAll("&quot;", "\"");
 
-		// See also StructureAnalyser.populateFieldsData()
-		if (complexType.isGeneric() || complexType.isPrimitive() || complexType.isArray()) {
-			link.attr("href", "404.html");
-		} else {
-			link.attr("href", value + ".html");
-		}
+		// See also StructureAnalyser.populateFieldsData(); the classes of the
+		// class path entries that are not documented have no page either. A
+		// nested class links to the page of its enclosing class
+		String link = DotFileGenerator.getPageName(complexType) + ".html";
 
-		link.text(value);
+		writer.write("<tr>");
+		writeCell(writer, entry.getKey());
+		writer.write("<td border=\"1\"><a href=\"" + escape(link) + "\">" + escape(value) + "</a></td>");
+		writer.write("</tr>");
 	}
 
-	private void setDependencyMatrix(Document classTemplate, String className) {
-		try {
+	/**
+	 * The png image followed by its image map; the map generated by dot is
+	 * copied as is. The svg image carries its own links; the same is embedded
+	 * as an object (and not an img) so that the links are clickable. The map
+	 * kept in memory by the image generator is used in place of the .map file
+	 * when available.
+	 *
+	 * @param writer
+	 * @param complexType
+	 * @throws IOException
+	 */
+	private void writeDependencyMatrix(Writer writer, ComplexType complexType) throws IOException {
+		String className = complexType.getFullyQualifiedName();
+
+		if (ImageFormat.SVG == RuntimeConfigurator.getConfig().getImageFormat()) {
+			writer.write("<object id=\"dependencyMatrix\" type=\"image/svg+xml\" data=\""
+					+ escape("images/" + className + ".svg") + "\"></object>");
+			return;
+		}
 
-			// Set the image
-			Element currentClass = classTemplate.getElementById("dependencyMatrix");
-			currentClass.attr("src", "images" + File.separator + className + ".png");
-			currentClass.attr("USEMAP", "#" + className);
+		writer.write("<img id=\"dependencyMatrix\" src=\"" + escape("images/" + className + ".png")
+				+ "\" usemap=\"" + escape("#" + className) + "\" />");
 
-			// Set the usemap
-			String src = RuntimeConfigurator.getConfig().getPngFilesLocation();
-			File map = new File(src + File.separator + className + ".map");
-			Document mapDetails;
-			mapDetails = Jsoup.parse(map, "utf-8");
-			Element mapElement = mapDetails.getElementById(className);
+		String imageMap = complexType.getImageMap();
+		if (null != imageMap) {
+			writer.write(imageMap);
+			complexType.setImageMap(null);
+			return;
+		}
 
-			currentClass.after(mapElement);
+		String src = RuntimeConfigurator.getConfig().getPngFilesLocation();
+		File map = new File(src + File.separator + className + ".map");
 
+		try (Reader reader = Files.newBufferedReader(map.toPath(), StandardCharsets.UTF_8)) {
+			IOUtils.copy(reader, writer);
 		} catch (IOException exception) {
 			Logger.error("Exception occurred while populating dependency matrix : " + exception);
 		}
-
-	}
-
-	private void setMethodCount(Document classTemplate, int count) {
-		Element currentClass = classTemplate.getElementById("methodCount");
-		currentClass.text(String.valueOf(count));
-	}
-
-	private void setAttributeCount(Document classTemplate, int count) {
-		Element currentClass = classTemplate.getElementById("attributeCount");
-		currentClass.text(String.valueOf(count));
-	}
-
-	private void setClassName(Document classTemplate, String className) {
-		Elements currentClass = classTemplate.getElementsByAttributeValue("id", "currentClass");
-
-		for (Element element : currentClass) {
-			element.text(className);
-		}
 	}
 }
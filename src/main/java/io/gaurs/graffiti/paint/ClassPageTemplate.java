@@ -0,0 +1,121 @@
+package io.gaurs.graffiti.paint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.TextNode;
+
+/**
+ * The template.html precompiled into literal segments separated by named
+ * slots. The template is parsed once; every slot is replaced by a marker and
+ * the serialized document is then split at the markers. A class page is
+ * generated by writing the segments one after the other and the class
+ * specific content in place of every slot, without building a DOM per page.
+ *
+ * @author gaurs
+ *
+ */
+public class ClassPageTemplate {
+
+	/**
+	 * The placeholders in the template
+	 */
+	public enum Slot {
+		TITLE, CURRENT_CLASS, PACKAGE_NAME, ATTRIBUTE_COUNT, METHOD_COUNT, DEPENDENCY_MATRIX, ATTRIBUTES, METHODS
+	}
+
+	/**
+	 * Writes the content of a slot
+	 */
+	public interface SlotWriter {
+		void write(Slot slot, Writer writer) throws IOException;
+	}
+
+	private static final String MARKER = "@@graffiti-slot:";
+	private static final String MARKER_END = "@@";
+
+	// segments.get(i) is followed by slots.get(i); the last segment has no
+	// slot after it
+	private final List<String> segments = new ArrayList<>();
+	private final List<Slot> slots = new ArrayList<>();
+
+	private ClassPageTemplate() {
+
+	}
+
+	/**
+	 * Parse and compile the template available on the given stream
+	 *
+	 * @param stream
+	 * @return
+	 * @throws IOException
+	 */
+	public static ClassPageTemplate compile(InputStream stream) throws IOException {
+		Document template = Jsoup.parse(stream, "utf-8", "");
+
+		template.getElementsByTag("title").first().text(marker(Slot.TITLE));
+		for (Element element : template.getElementsByAttributeValue("id", "currentClass")) {
+			element.text(marker(Slot.CURRENT_CLASS));
+		}
+		template.getElementById("packageName").text(marker(Slot.PACKAGE_NAME));
+		template.getElementById("attributeCount").text(marker(Slot.ATTRIBUTE_COUNT));
+		template.getElementById("methodCount").text(marker(Slot.METHOD_COUNT));
+
+		// the image along with its map (or the svg object) replaces the
+		// placeholder image
+		Element image = template.getElementById("dependencyMatrix");
+		image.before(new TextNode(marker(Slot.DEPENDENCY_MATRIX), ""));
+		image.remove();
+
+		// the rows go at the end of the tables
+		template.getElementById("attributes").appendChild(new TextNode(marker(Slot.ATTRIBUTES), ""));
+		template.getElementById("methods").appendChild(new TextNode(marker(Slot.METHODS), ""));
+
+		return split(template.html());
+	}
+
+	private static ClassPageTemplate split(String html) {
+		ClassPageTemplate compiled = new ClassPageTemplate();
+
+		int position = 0;
+		int start = html.indexOf(MARKER);
+		while (start >= 0) {
+			int end = html.indexOf(MARKER_END, start + MARKER.length());
+
+			compiled.segments.add(html.substring(position, start));
+			compiled.slots.add(Slot.valueOf(html.substring(start + MARKER.length(), end)));
+
+			position = end + MARKER_END.length();
+			start = html.indexOf(MARKER, position);
+		}
+		compiled.segments.add(html.substring(position));
+
+		return compiled;
+	}
+
+	private static String marker(Slot slot) {
+		return MARKER + slot.name() + MARKER_END;
+	}
+
+	/**
+	 * Write the page to the given writer
+	 *
+	 * @param writer
+	 * @param slotWriter
+	 *            writes the content of every slot
+	 * @throws IOException
+	 */
+	public void write(Writer writer, SlotWriter slotWriter) throws IOException {
+		for (int index = 0; index < slots.size(); index++) {
+			writer.write(segments.get(index));
+			slotWriter.write(slots.get(index), writer);
+		}
+		writer.write(segments.get(segments.size() - 1));
+	}
+}
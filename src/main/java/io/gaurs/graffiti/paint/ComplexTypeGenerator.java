@@ -0,0 +1,23 @@
+package io.gaurs.graffiti.paint;
+
+import io.gaurs.graffiti.model.ComplexType;
+
+/**
+ * A FileGenerator whose output is generated class by class. The same is used
+ * by the {@link Pipeline} to run a single class through all the stages.
+ * 
+ * @author gaurs
+ *
+ */
+public interface ComplexTypeGenerator extends FileGenerator {
+
+	/**
+	 * Generate the output corresponding to the given class only
+	 * 
+	 * @param complexType
+	 * @return false if the output could not be generated in full ex: a
+	 *         placeholder image in place of the diagram
+	 */
+	public boolean paint(ComplexType complexType);
+
+}
@@ -0,0 +1,268 @@
+package io.gaurs.graffiti.paint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import io.gaurs.graffiti.model.ComplexType;
+
+/**
+ * Lays out the diagram of a single class the same way as the graph generated
+ * by {@link DotFileGenerator} with rankdir=LR : the class table on the left
+ * with one row (port) per attribute, the tables of the attribute types stacked
+ * on the right and an edge from every port to the table of its type. As the
+ * graph is always a star of depth one, no general purpose graph layout is
+ * needed; the targets are ordered by the first port referring to them which
+ * keeps the edges from crossing.
+ *
+ * All the coordinates are in points.
+ *
+ * @author gaurs
+ *
+ */
+public class DiagramLayout {
+
+	static final double FONT_SIZE = 11;
+	static final double ROW_HEIGHT = 19;
+	static final double CELL_PADDING = 6;
+	static final double MARGIN = 8;
+
+	// same as nodesep/ranksep of the dot header
+	static final double NODE_SEPARATION = 13;
+	static final double RANK_SEPARATION = 60;
+
+	static final double MINIMUM_NODE_WIDTH = 60;
+	static final double LOOP_WIDTH = 20;
+
+	static final String LABEL = "Generated by Graffiti (http://graffiti.gaurs.io)";
+
+	private final Node classNode;
+	private final List<Node> relatedNodes = new ArrayList<>();
+	private final List<Edge> edges = new ArrayList<>();
+
+	private double width;
+	private double height;
+	private double labelY;
+
+	public DiagramLayout(ComplexType complexType) {
+		// the attributes of the nested classes are part of the class table
+		Map<String, ComplexType> attributes = null != complexType.getPageAttributes()
+				? complexType.getPageAttributes() : Collections.emptyMap();
+
+		classNode = new Node(complexType, attributes, complexType.getFullyQualifiedName() + ".html");
+
+		// one node per distinct attribute type; the class itself is not
+		// repeated for a self referencing attribute
+		Map<String, Node> targets = new LinkedHashMap<>();
+		for (ComplexType type : attributes.values()) {
+			if (null != type && !type.getFullyQualifiedName().equals(complexType.getFullyQualifiedName())) {
+				targets.computeIfAbsent(type.getFullyQualifiedName(),
+						key -> new Node(type, type.getAttributes(), DotFileGenerator.getPageName(type) + ".html"));
+			}
+		}
+		relatedNodes.addAll(targets.values());
+
+		layout();
+
+		int port = 0;
+		for (Entry<String, ComplexType> attribute : attributes.entrySet()) {
+			if (null != attribute.getValue()) {
+				Node target = targets.get(attribute.getValue().getFullyQualifiedName());
+				edges.add(new Edge(classNode, port, null != target ? target : classNode));
+			}
+			port++;
+		}
+	}
+
+	private void layout() {
+		double classHeight = classNode.height;
+
+		double relatedWidth = 0;
+		double relatedHeight = 0;
+		for (Node node : relatedNodes) {
+			relatedWidth = Math.max(relatedWidth, node.width);
+			relatedHeight += node.height;
+		}
+		relatedHeight += Math.max(0, relatedNodes.size() - 1) * NODE_SEPARATION;
+
+		// center the shorter of the two columns against the taller one
+		double columnHeight = Math.max(classHeight, relatedHeight);
+
+		classNode.x = MARGIN;
+		classNode.y = MARGIN + (columnHeight - classHeight) / 2;
+
+		double relatedX = MARGIN + classNode.width + RANK_SEPARATION;
+		double relatedY = MARGIN + (columnHeight - relatedHeight) / 2;
+		for (Node node : relatedNodes) {
+			node.x = relatedX;
+			node.y = relatedY;
+			relatedY += node.height + NODE_SEPARATION;
+		}
+
+		double contentWidth = relatedNodes.isEmpty() ? classNode.width + LOOP_WIDTH
+				: classNode.width + RANK_SEPARATION + relatedWidth;
+
+		labelY = MARGIN + columnHeight + ROW_HEIGHT;
+		width = MARGIN * 2 + Math.max(contentWidth, textWidth(LABEL));
+		height = labelY + MARGIN;
+	}
+
+	public Node getClassNode() {
+		return classNode;
+	}
+
+	public List<Node> getRelatedNodes() {
+		return relatedNodes;
+	}
+
+	public List<Edge> getEdges() {
+		return edges;
+	}
+
+	public double getWidth() {
+		return width;
+	}
+
+	public double getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return the baseline of the "Generated by" label
+	 */
+	public double getLabelY() {
+		return labelY;
+	}
+
+	/**
+	 * Estimated width of the given text in Helvetica at FONT_SIZE. The font
+	 * metrics are approximated by three classes of characters which is good
+	 * enough to size the tables without depending on the fonts available to
+	 * the jvm.
+	 *
+	 * @param text
+	 * @return
+	 */
+	static double textWidth(String text) {
+		double width = 0;
+		for (int index = 0; index < text.length(); index++) {
+			char current = text.charAt(index);
+			if ("iljtfrI.,;:'|!()[] ".indexOf(current) >= 0) {
+				width += 0.3;
+			} else if ("mwMW@%".indexOf(current) >= 0 || Character.isUpperCase(current)) {
+				width += 0.75;
+			} else {
+				width += 0.56;
+			}
+		}
+		return width * FONT_SIZE;
+	}
+
+	/**
+	 * A table with a header row and one row per attribute of its type
+	 */
+	public static class Node {
+		private final String title;
+		private final List<String> rows;
+		private final String link;
+		private final double width;
+		private final double height;
+		private double x;
+		private double y;
+
+		Node(ComplexType complexType, Map<String, ComplexType> attributes, String link) {
+			this.title = unescape(complexType.getFullyQualifiedName());
+			this.rows = null != attributes ? new ArrayList<>(attributes.keySet()) : Collections.emptyList();
+			this.link = link;
+
+			double textWidth = textWidth(title);
+			for (String row : rows) {
+				textWidth = Math.max(textWidth, textWidth(row));
+			}
+
+			this.width = Math.max(MINIMUM_NODE_WIDTH, textWidth + CELL_PADDING * 2);
+			this.height = ROW_HEIGHT * (rows.size() + 1);
+		}
+
+		public String getTitle() {
+			return title;
+		}
+
+		public List<String> getRows() {
+			return rows;
+		}
+
+		public String getLink() {
+			return link;
+		}
+
+		public double getX() {
+			return x;
+		}
+
+		public double getY() {
+			return y;
+		}
+
+		public double getWidth() {
+			return width;
+		}
+
+		public double getHeight() {
+			return height;
+		}
+
+		/**
+		 * @param row
+		 *            index of the attribute row; -1 for the header
+		 * @return the vertical center of the row
+		 */
+		public double getRowCenter(int row) {
+			return y + ROW_HEIGHT * (row + 1) + ROW_HEIGHT / 2;
+		}
+	}
+
+	/**
+	 * An edge from an attribute row of the class node to the header of the
+	 * attribute type
+	 */
+	public static class Edge {
+		private final Node source;
+		private final int port;
+		private final Node target;
+
+		Edge(Node source, int port, Node target) {
+			this.source = source;
+			this.port = port;
+			this.target = target;
+		}
+
+		public Node getSource() {
+			return source;
+		}
+
+		public int getPort() {
+			return port;
+		}
+
+		public Node getTarget() {
+			return target;
+		}
+
+		public boolean isLoop() {
+			return source == target;
+		}
+	}
+
+	/**
+	 * The names of generic types are stored html escaped for the dot labels
+	 *
+	 * @see io.gaurs.graffiti.StructureAnalyzer
+	 */
+	private static String unescape(String value) {
+		return value.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"");
+	}
+}
@@ -1,27 +1,69 @@
 package io.gaurs.graffiti.paint;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.apache.commons.io.FileUtils;
 import org.pmw.tinylog.Logger;
 
+import io.gaurs.graffiti.config.ImageFormat;
+import io.gaurs.graffiti.config.LayoutEngine;
 import io.gaurs.graffiti.config.RuntimeConfigurator;
 import io.gaurs.graffiti.model.ComplexType;
 import io.gaurs.graffiti.model.ComplexTypeCache;
+import io.gaurs.graffiti.model.TypeGraph;
 
 /**
  * dot -Tcmapx -oorg.pmw.tinylog.Configuration.map -Tgif
  * -oorg.pmw.tinylog.Configuration.png org.pmw.tinylog.Configuration.dot
  * 
+ * The graph is assembled as utf-8 bytes. The header is the same for all the
+ * graphs but for the name; the same is encoded once. The table of a type
+ * shown next to the class (see getRelatedTableView()) is encoded the first
+ * time the type is referred to and copied as is into every later graph
+ * referring to it; a type used by many classes is rendered just once.
+ * 
+ * With RuntimeConfigurator.getDiagramDepth() &gt; 1 the graph shows the
+ * classes within as many hops of the class along the fields in either
+ * direction (see {@link TypeGraph}) along with the edges between them.
+ * 
+ * The tables list RuntimeConfigurator.getDiagramMaxFields() fields at most;
+ * the rest of the fields of the class are collapsed into a single summary
+ * node linking to its page, which lists all of them. A graph having more than
+ * RuntimeConfigurator.getLargeGraphNodes() nodes is laid out by
+ * RuntimeConfigurator.getLargeGraphEngine() instead of dot.
  * 
  * @author gaurs
  *
  */
-public class DotFileGenerator implements FileGenerator {
+public class DotFileGenerator implements ComplexTypeGenerator {
+
+	private static final byte[] NEW_LINE_BYTES = NEW_LINE.getBytes(StandardCharsets.UTF_8);
+
+	// port of the row standing for the collapsed fields of a table; no field
+	// is named so
+	private static final String MORE_FIELDS = "(more)";
+
+	// the header following the name of the graph
+	private final byte[] header = getHeader().getBytes(StandardCharsets.UTF_8);
+
+	// the encoded table of every type referred to by an attribute; keyed by
+	// the instance as the placeholders are shared by all the fields of a type
+	private final Map<ComplexType, byte[]> relatedTableViews = new ConcurrentHashMap<>();
+
+	// built on first use once the diagrams are more than a hop deep
+	private TypeGraph typeGraph;
 
 	// The method initiates the process of generating dot files which will
 	// become the input for graphviz api to generate directed graphs
@@ -32,14 +74,19 @@ public class DotFileGenerator implements FileGenerator {
 		//Get the output location for dot files
 		String outputLocation = RuntimeConfigurator.getConfig().getDotFilesLocation();
 		
-		//for every entry in the complexType cache; generate a dot file
-		ComplexTypeCache.getComplexTypeCache().entrySet().iterator().forEachRemaining(entry -> {
-			generateDotFile(entry, outputLocation);
+		//for every documented entry in the complexType cache; generate a dot file
+		ComplexTypeCache.getComplexTypeCache().getDocumentedTypes().iterator().forEachRemaining(complexType -> {
+			generateDotFile(complexType, outputLocation);
 		});
 	}
 
+	@Override
+	public boolean paint(ComplexType complexType) {
+		return generateDotFile(complexType, RuntimeConfigurator.getConfig().getDotFilesLocation());
+	}
+
 	/**
-	 * Generate a dot file for the given entry @ outputLocation as denoted by
+	 * Generate a dot file for the given complexType @ outputLocation as denoted by
 	 * the input parm outputLocation.
 	 * <ol>
 	 * <li>Get the tabular representation of the ComplexType</li>
@@ -48,95 +95,234 @@ public class DotFileGenerator implements FileGenerator {
 	 * <li>get the tabular representation of the field's type</li>
 	 * <li>The generated arrow will be from 2 to 3 itself</li>
 	 * 
-	 * @param entry
+	 * @param complexType
 	 * @param outputLocation
+	 * @return false if the dot file could not be written
 	 */
-	private void generateDotFile(Entry<String, ComplexType> entry, String outputLocation) {
-		String fullyQualifiedClassName = entry.getKey();
-		ComplexType complexType = entry.getValue();
+	private boolean generateDotFile(ComplexType complexType, String outputLocation) {
+		String fullyQualifiedClassName = complexType.getFullyQualifiedName();
+
+		ByteArrayOutputStream content = new ByteArrayOutputStream(8 * 1024);
 
-		StringBuilder content = new StringBuilder();
-		
 		//populate the header denoting the color; shape; bgcolor etc attributes
-		content.append(getHeader(fullyQualifiedClassName));
+		write(content, "digraph \"" + fullyQualifiedClassName + "\" {" + NEW_LINE);
+		write(content, header);
+
+		// The attributes of the nested classes are part of the same table;
+		// the ones past the limit are collapsed into the summary node
+		Map<String, ComplexType> attributes = getShownAttributes(complexType.getPageAttributes());
+
+		// the classes farther away and the ones referring to the class
+		List<ComplexType> neighbourhood = RuntimeConfigurator.getConfig().getDiagramDepth() > 1
+				? getTypeGraph().getNeighbourhood(complexType, RuntimeConfigurator.getConfig().getDiagramDepth(),
+						RuntimeConfigurator.getConfig().getDiagramMaxNodes())
+				: Collections.emptyList();
+
+		// dot takes minutes for the largest graphs
+		if (getNodeCount(complexType, attributes, neighbourhood) > RuntimeConfigurator.getConfig()
+				.getLargeGraphNodes()) {
+			write(content, getLargeGraphHeader());
+		}
 
 		// get a tabular representation of the class represented by current
 		// complexType entry
-		String tableView = getCurrentTableView(complexType);
-		content.append(tableView);
+		write(content, getCurrentTableView(complexType, attributes));
 
 		// For all the attributes which are part of the jar; append their
 		// structure to the current graph for 1 level hierarchy (no arrows
 		// generating from those)
-		Map<String, ComplexType> attributes = complexType.getAttributes();
-
 		if (null != attributes && !attributes.isEmpty()) {
-			attributes.entrySet().iterator().forEachRemaining(relatedEntry -> {
-				String relatdeTableData = getRelatedTableView(relatedEntry);
-				if (null != relatdeTableData) {
-					content.append(NEW_LINE);
-					content.append(NEW_LINE);
-					content.append(relatdeTableData);
+			attributes.values().forEach(relatedType -> {
+				if (null != relatedType) {
+					// encoded once per type; copied into every graph after
+					write(content, relatedTableViews.computeIfAbsent(relatedType, this::getRelatedTableView));
 				}
 			});
 		}
 
-		content.append(NEW_LINE);
-		
+		if (!neighbourhood.isEmpty()) {
+			writeNeighbourhood(complexType, attributes, neighbourhood, content);
+		}
+
+		write(content, NEW_LINE_BYTES);
+
 		//close the current dot file by appending the footer 
-		content.append(closeGraph());
-		
-		//write the current dot file contents to the file
-		writeToFile(fullyQualifiedClassName, outputLocation, content.toString(), ".dot");
+		write(content, closeGraph());
+
+		//write the current dot file contents to the file; or keep the same in
+		//memory for the image generator
+		if (RuntimeConfigurator.getConfig().isIntermediateFiles()) {
+			return writeToFile(fullyQualifiedClassName, outputLocation, content.toByteArray(), ".dot");
+		}
+
+		complexType.setDotSource(content.toByteArray());
+		return true;
 	}
 
 	/**
-	 * Generates the RHS of the directed edge for every attribute
+	 * Append the tables of the classes found by the TypeGraph but for the
+	 * ones already shown as the types of the attributes, followed by an edge
+	 * from every attribute of those classes to the class or any of the
+	 * classes shown. A nested class shown on the page of the class is
+	 * referred to as the class itself.
 	 * 
-	 * @param relatedEntry
-	 * @return
+	 * @param complexType
+	 * @param attributes
+	 *            shown in the table of the class; null if none
+	 * @param neighbourhood
+	 * @param content
 	 */
-	private String getRelatedTableView(Entry<String, ComplexType> relatedEntry) {
-		ComplexType complexType = relatedEntry.getValue();
-		StringBuilder content = null;
-		if (null != complexType) {
-			content = new StringBuilder();
-			
-			content.append("\"" + complexType.getFullyQualifiedName() + "\" [" + "label=<" + NEW_LINE
-					+ "<TABLE BORDER=\"0\" CELLBORDER=\"1\" CELLSPACING=\"0\" BGCOLOR=\"#ffffff\">");
-			content.append(NEW_LINE);
-
-			content.append("	<TR><TD BGCOLOR=\"#8CB4F0\" ALIGN=\"CENTER\">" + complexType.getFullyQualifiedName()
-					+ "</TD></TR>");
-			content.append(NEW_LINE);
-
-			Iterator<Map.Entry<String, ComplexType>> iterator = null;
-
-			// Just create a row for every attribute of the RHS; we are not
-			// generating any arrows starting from this table. The same will be
-			// catered in its own .html file
-			if (null != complexType.getAttributes()) {
-				iterator = complexType.getAttributes().entrySet().iterator();
-				while (iterator.hasNext()) {
-					Map.Entry<String, ComplexType> entry = iterator.next();
-					content.append("	<TR><TD PORT=\"" + entry.getKey() + "\" BGCOLOR=\"#E2EBF9\" ALIGN=\"LEFT\">"
-							+ entry.getKey() + "</TD></TR>");
-					content.append(NEW_LINE);
+	private void writeNeighbourhood(ComplexType complexType, Map<String, ComplexType> attributes,
+			List<ComplexType> neighbourhood, ByteArrayOutputStream content) {
+		Set<ComplexType> shown = Collections.newSetFromMap(new IdentityHashMap<>());
+		if (null != attributes) {
+			shown.addAll(attributes.values());
+		}
+
+		for (ComplexType neighbour : neighbourhood) {
+			if (shown.add(neighbour)) {
+				write(content, relatedTableViews.computeIfAbsent(neighbour, this::getRelatedTableView));
+			}
+		}
+
+		Set<ComplexType> targets = Collections.newSetFromMap(new IdentityHashMap<>());
+		targets.addAll(neighbourhood);
+		targets.add(complexType);
+
+		StringBuilder relations = new StringBuilder();
+		for (ComplexType neighbour : neighbourhood) {
+			if (null == neighbour.getAttributes()) {
+				continue;
+			}
+
+			int index = 0;
+			Set<ComplexType> collapsed = Collections.newSetFromMap(new IdentityHashMap<>());
+			for (Map.Entry<String, ComplexType> entry : neighbour.getAttributes().entrySet()) {
+				ComplexType target = entry.getValue();
+				if (null != target && complexType == target.getEnclosingType()) {
+					target = complexType;
+				}
+
+				// the collapsed fields start from the summary row; once per
+				// target
+				boolean summary = index++ >= RuntimeConfigurator.getConfig().getDiagramMaxFields();
+				String port = summary ? MORE_FIELDS : entry.getKey();
+				if (targets.contains(target) && (!summary || collapsed.add(target))) {
+					relations.append('"').append(neighbour.getFullyQualifiedName()).append("\":\"")
+							.append(port).append("\"->\"").append(target.getFullyQualifiedName()).append('"')
+							.append(NEW_LINE);
 				}
 			}
-			content.append("</TABLE>>");
-			content.append(NEW_LINE);
-			
-			// for primitives, arrays and generic types populate the link to 404
-			// page; for others it will link to <fully_qualified_name>.html
-			content.append("URL=\" " + getPageName(complexType) + ".html" + "\"");
-			content.append(NEW_LINE);
-			content.append("tooltip=\" " + complexType.getFullyQualifiedName() + "\"");
-			content.append(NEW_LINE);
-			content.append("];");
 		}
 
-		return null != content ? content.toString() : null;
+		if (relations.length() > 0) {
+			write(content, NEW_LINE + NEW_LINE + relations);
+		}
+	}
+
+	/**
+	 * @param attributes
+	 *            null if none
+	 * @return the first RuntimeConfigurator.getDiagramMaxFields() of the
+	 *         given attributes; the attributes themselves if there are no
+	 *         more
+	 */
+	private static Map<String, ComplexType> getShownAttributes(Map<String, ComplexType> attributes) {
+		int maxFields = RuntimeConfigurator.getConfig().getDiagramMaxFields();
+		if (null == attributes || attributes.size() <= maxFields) {
+			return attributes;
+		}
+
+		Map<String, ComplexType> shown = new LinkedHashMap<>();
+		for (Map.Entry<String, ComplexType> entry : attributes.entrySet()) {
+			if (shown.size() == maxFields) {
+				break;
+			}
+			shown.put(entry.getKey(), entry.getValue());
+		}
+		return shown;
+	}
+
+	/**
+	 * @param complexType
+	 * @param attributes
+	 *            shown in the table of the class; null if none
+	 * @param neighbourhood
+	 * @return the number of tables in the graph of the class including the
+	 *         summary node
+	 */
+	private int getNodeCount(ComplexType complexType, Map<String, ComplexType> attributes,
+			List<ComplexType> neighbourhood) {
+		Set<ComplexType> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		nodes.add(complexType);
+		if (null != attributes) {
+			nodes.addAll(attributes.values());
+		}
+		nodes.addAll(neighbourhood);
+		nodes.remove(null);
+
+		boolean collapsed = null != complexType.getPageAttributes()
+				&& complexType.getPageAttributes().size() > RuntimeConfigurator.getConfig().getDiagramMaxFields();
+		return nodes.size() + (collapsed ? 1 : 0);
+	}
+
+	private synchronized TypeGraph getTypeGraph() {
+		if (null == typeGraph) {
+			typeGraph = new TypeGraph(ComplexTypeCache.getComplexTypeCache());
+		}
+		return typeGraph;
+	}
+
+	private static void write(ByteArrayOutputStream content, String text) {
+		write(content, text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void write(ByteArrayOutputStream content, byte[] bytes) {
+		content.write(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Generates the RHS of the directed edge for an attribute; preceded by the
+	 * blank line separating the same from the rest of the graph
+	 * 
+	 * @param complexType
+	 *            type of the attribute
+	 * @return
+	 */
+	private byte[] getRelatedTableView(ComplexType complexType) {
+		StringBuilder content = new StringBuilder(256);
+
+		content.append(NEW_LINE).append(NEW_LINE);
+		content.append('"').append(complexType.getFullyQualifiedName()).append("\" [label=<").append(NEW_LINE)
+				.append("<TABLE BORDER=\"0\" CELLBORDER=\"1\" CELLSPACING=\"0\" BGCOLOR=\"#ffffff\">")
+				.append(NEW_LINE);
+
+		content.append("	<TR><TD BGCOLOR=\"#8CB4F0\" ALIGN=\"CENTER\">").append(complexType.getFullyQualifiedName())
+				.append("</TD></TR>").append(NEW_LINE);
+
+		// Just create a row for every attribute of the RHS; we are not
+		// generating any arrows starting from this table. The same will be
+		// catered in its own .html file
+		Map<String, ComplexType> attributes = getShownAttributes(complexType.getAttributes());
+		if (null != attributes) {
+			for (String attribute : attributes.keySet()) {
+				content.append("	<TR><TD PORT=\"").append(attribute).append("\" BGCOLOR=\"#E2EBF9\" ALIGN=\"LEFT\">")
+						.append(attribute).append("</TD></TR>").append(NEW_LINE);
+			}
+
+			if (attributes != complexType.getAttributes()) {
+				content.append(getMoreFieldsRow(complexType.getAttributes().size() - attributes.size()));
+			}
+		}
+		content.append("</TABLE>>").append(NEW_LINE);
+
+		// for primitives, arrays and generic types populate the link to 404
+		// page; for others it will link to <fully_qualified_name>.html
+		content.append("URL=\" ").append(getPageName(complexType)).append(".html\"").append(NEW_LINE);
+		content.append("tooltip=\" ").append(complexType.getFullyQualifiedName()).append('"').append(NEW_LINE);
+		content.append("];");
+
+		return content.toString().getBytes(StandardCharsets.UTF_8);
 	}
 
 	/**
@@ -154,10 +340,14 @@ public class DotFileGenerator implements FileGenerator {
 	 * @param complexType
 	 * @return
 	 */
-	private String getPageName(ComplexType complexType) {
+	static String getPageName(ComplexType complexType) {
 		String name = null;
-		if (complexType.isArray() || complexType.isGeneric() || complexType.isPrimitive()) {
+		if (complexType.isArray() || complexType.isGeneric() || complexType.isPrimitive()
+				|| !complexType.isDocumented()) {
 			name = "404";
+		} else if (null != complexType.getEnclosingType()) {
+			// a nested class is shown on the page of its enclosing class
+			name = complexType.getEnclosingType().getFullyQualifiedName();
 		} else {
 			name = complexType.getFullyQualifiedName();
 		}
@@ -169,9 +359,11 @@ public class DotFileGenerator implements FileGenerator {
 	 * current entry
 	 * 
 	 * @param complexType
+	 * @param attributes
+	 *            shown in the table; null if none
 	 * @return
 	 */
-	private String getCurrentTableView(ComplexType complexType) {
+	private String getCurrentTableView(ComplexType complexType, Map<String, ComplexType> attributes) {
 		StringBuilder content = new StringBuilder();
 
 		content.append("\"" + complexType.getFullyQualifiedName() + "\" [" + "label=<" + NEW_LINE
@@ -182,10 +374,10 @@ public class DotFileGenerator implements FileGenerator {
 				+ "</TD></TR>");
 		content.append(NEW_LINE);
 
-		//create a row for every attribute in the class
+		//create a row for every attribute in the class and its nested classes
 		Iterator<Map.Entry<String, ComplexType>> iterator = null;
-		if (null != complexType.getAttributes()) {
-			iterator = complexType.getAttributes().entrySet().iterator();
+		if (null != attributes) {
+			iterator = attributes.entrySet().iterator();
 
 			while (iterator.hasNext()) {
 				Map.Entry<String, ComplexType> entry = iterator.next();
@@ -198,6 +390,12 @@ public class DotFileGenerator implements FileGenerator {
 			}
 		}
 
+		// the rest of the fields are listed on the page of the class
+		int collapsed = null != attributes ? complexType.getPageAttributes().size() - attributes.size() : 0;
+		if (collapsed > 0) {
+			content.append(getMoreFieldsRow(collapsed));
+		}
+
 		//close the table
 		content.append("</TABLE>>");
 		content.append(NEW_LINE);
@@ -213,13 +411,17 @@ public class DotFileGenerator implements FileGenerator {
 		content.append(NEW_LINE);
 
 		// print relations
-		if (null != complexType.getAttributes()) {
+		if (null != attributes) {
 			
 			//Now draw arrows for all of the attributes
-			String relations = generateRelations(complexType);
+			String relations = generateRelations(complexType, attributes);
 			content.append(relations);
 		}
 
+		if (collapsed > 0) {
+			content.append(getSummaryNode(complexType, collapsed));
+		}
+
 		content.append(NEW_LINE);
 		return content.toString();
 	}
@@ -235,10 +437,12 @@ public class DotFileGenerator implements FileGenerator {
 	 * The target is generated as part of getRelatedTableView() method 
 	 * 
 	 * @param complexType
+	 * @param attributes
+	 *            shown in the table of the class
 	 * @return
 	 */
-	private String generateRelations(ComplexType complexType) {
-		Iterator<Map.Entry<String, ComplexType>> iterator = complexType.getAttributes().entrySet().iterator();
+	private String generateRelations(ComplexType complexType, Map<String, ComplexType> attributes) {
+		Iterator<Map.Entry<String, ComplexType>> iterator = attributes.entrySet().iterator();
 		StringBuilder content = new StringBuilder();
 
 		while (iterator.hasNext()) {
@@ -270,25 +474,75 @@ public class DotFileGenerator implements FileGenerator {
 
 	}
 
-	private Object closeGraph() {
+	private String getMoreFieldsRow(int collapsed) {
+		return "	<TR><TD PORT=\"" + MORE_FIELDS + "\" BGCOLOR=\"#F5F5F5\" ALIGN=\"LEFT\"><I>" + collapsed
+				+ " more fields</I></TD></TR>" + NEW_LINE;
+	}
+
+	/**
+	 * A single node standing for the types of the collapsed fields of the
+	 * class; linked from the summary row of its table
+	 * 
+	 * @param complexType
+	 * @param collapsed
+	 *            number of fields collapsed
+	 * @return
+	 */
+	private String getSummaryNode(ComplexType complexType, int collapsed) {
+		Set<ComplexType> types = Collections.newSetFromMap(new IdentityHashMap<>());
+		int index = 0;
+		for (ComplexType type : complexType.getPageAttributes().values()) {
+			if (index++ >= RuntimeConfigurator.getConfig().getDiagramMaxFields() && null != type) {
+				types.add(type);
+			}
+		}
+
+		String summary = complexType.getFullyQualifiedName() + " " + MORE_FIELDS;
+		return "\"" + summary + "\" [shape=\"box\" style=\"dashed\" label=\"" + collapsed + " more fields of "
+				+ types.size() + " types\\nlisted on the page of the class\"" + NEW_LINE
+				+ "URL=\" " + complexType.getFullyQualifiedName() + ".html\"" + NEW_LINE
+				+ "];" + NEW_LINE
+				+ "\"" + complexType.getFullyQualifiedName() + "\":\"" + MORE_FIELDS + "\"->\"" + summary + "\""
+				+ NEW_LINE;
+	}
+
+	private String closeGraph() {
 		return "}";
 	}
 
-	private void writeToFile(String name, String outputLocation, String html, String extension) {
+	private boolean writeToFile(String name, String outputLocation, byte[] content, String extension) {
 		File file = new File(outputLocation + File.separator + name + extension);
 
 		try {
-			file.createNewFile();
-			FileUtils.writeStringToFile(file, html, "utf-8");
-
+			Files.write(file.toPath(), content);
+			return true;
 		} catch (IOException exception) {
 			Logger.error("Exception occurred while writing to file : " + name, exception);
+			return false;
+		}
+	}
+
+	/**
+	 * The force directed engines ignore the ranks; the overlapping tables are
+	 * moved apart instead
+	 * 
+	 * @return the graph attributes switching the layout engine; empty if the
+	 *         large graphs are laid out by dot as well
+	 */
+	private String getLargeGraphHeader() {
+		LayoutEngine engine = RuntimeConfigurator.getConfig().getLargeGraphEngine();
+		if (LayoutEngine.DOT == engine) {
+			return "";
 		}
+		return "	graph [layout=\"" + engine.getName() + "\" overlap=\"false\" splines=\"true\"];" + NEW_LINE
+				+ NEW_LINE;
 	}
 
-	private String getHeader(String name) {
-		String header = "digraph \"" +name+"\" {" + NEW_LINE
-				+ "	graph [" + NEW_LINE
+	/**
+	 * @return the header of every graph following its name
+	 */
+	private String getHeader() {
+		String header = "	graph [" + NEW_LINE
 				+ "		rankdir=\"LR\"" + NEW_LINE
 				+ "		bgcolor=\"#ffffff\"" + NEW_LINE
 				+ "		label=\"\\nGenerated by Graffiti (http://graffiti.gaurs.io)\"" + NEW_LINE
@@ -302,6 +556,8 @@ public class DotFileGenerator implements FileGenerator {
 				+ "		fontname=\"Helvetica\"" + NEW_LINE
 				+ "		fontsize=\"11\"" + NEW_LINE
 				+ "		shape=\"plaintext\"" + NEW_LINE
+				// svg images are embedded as objects; the links must open in the page itself
+				+ (ImageFormat.SVG == RuntimeConfigurator.getConfig().getImageFormat() ? "		target=\"_top\"" + NEW_LINE : "")
 				+ "];" + NEW_LINE
 				+"edge [" + NEW_LINE
 				+"arrowsize=\"0.8\"" + NEW_LINE
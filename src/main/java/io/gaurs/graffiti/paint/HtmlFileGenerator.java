@@ -3,6 +3,10 @@ package io.gaurs.graffiti.paint;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 import org.apache.commons.io.FileUtils;
 import org.pmw.tinylog.Logger;
@@ -80,6 +84,62 @@ public abstract class HtmlFileGenerator implements FileGenerator {
 		}
 	}
 
+	/**
+	 * Opens a buffered utf-8 writer to &lt;outputLocation&gt;/&lt;name&gt;.html;
+	 * used to stream the pages without holding the whole content in memory
+	 * 
+	 * @param name
+	 * @param outputLocation
+	 * @return
+	 * @throws IOException
+	 */
+	public Writer openWriter(String name, String outputLocation) throws IOException {
+		return Files.newBufferedWriter(Paths.get(outputLocation, name + ".html"), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Escapes the text to be written as html element content or attribute
+	 * value
+	 * 
+	 * @param text
+	 * @return
+	 */
+	public static String escape(String text) {
+		StringBuilder builder = null;
+		for (int index = 0; index < text.length(); index++) {
+			String replacement = null;
+			switch (text.charAt(index)) {
+			case '&':
+				replacement = "&amp;";
+				break;
+			case '<':
+				replacement = "&lt;";
+				break;
+			case '>':
+				replacement = "&gt;";
+				break;
+			case '"':
+				replacement = "&quot;";
+				break;
+			default:
+				break;
+			}
+
+			if (null != replacement && null == builder) {
+				builder = new StringBuilder(text.length() + 16);
+				builder.append(text, 0, index);
+			}
+
+			if (null != replacement) {
+				builder.append(replacement);
+			} else if (null != builder) {
+				builder.append(text.charAt(index));
+			}
+		}
+
+		return null != builder ? builder.toString() : text;
+	}
+
 	public static void copy404Page() {
 		InputStream bootstrapStream = null;
 		try {
@@ -1,69 +1,729 @@
 package io.gaurs.graffiti.paint;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.pmw.tinylog.Logger;
 
+import io.gaurs.graffiti.config.ImageFormat;
 import io.gaurs.graffiti.config.RuntimeConfigurator;
+import io.gaurs.graffiti.model.ComplexType;
+import io.gaurs.graffiti.model.ComplexTypeCache;
 
-public class ImageGenerator implements FileGenerator {
+/**
+ * Calls the dot executable for every .dot file to generate the .png image and
+ * the corresponding .map (cmapx) file; or the .svg image with
+ * --image-format=svg. Up to
+ * RuntimeConfigurator.getRenderThreads() dot processes run in parallel; a
+ * process that fails or runs longer than RuntimeConfigurator.getRenderTimeout()
+ * seconds only affects its own image; a diagram dot could not lay out in
+ * time is replaced by a small placeholder image naming the class. With
+ * RuntimeConfigurator.getRenderBatchSize() &gt; 1 every process renders a
+ * batch of dot files to amortize the startup of dot. With
+ * RuntimeConfigurator.isIntermediateFiles() false the dot source is fed
+ * through the standard input and the image map is kept in memory; no .dot or
+ * .map file is read or written. With RuntimeConfigurator.getRenderCacheLocation()
+ * the outputs of a graph rendered by an earlier run are copied from the
+ * {@link RenderCache} instead of running dot.
+ * 
+ * @author gaurs
+ *
+ */
+public class ImageGenerator implements ComplexTypeGenerator {
+
+	/**
+	 * Kills the dot processes fed through the standard input once they time
+	 * out
+	 */
+	private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(task -> {
+		Thread thread = new Thread(task, "dot-watchdog");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * The images rendered by the earlier runs; null if not configured
+	 */
+	private final RenderCache renderCache = null != RuntimeConfigurator.getConfig().getRenderCacheLocation()
+			? new RenderCache(RuntimeConfigurator.getConfig().getRenderCacheLocation()) : null;
+
+	private final AtomicInteger cacheHits = new AtomicInteger();
+
+	/**
+	 * Number of diagrams replaced by a placeholder as dot timed out
+	 */
+	private final AtomicInteger placeholders = new AtomicInteger();
+
+	/**
+	 * Output file names (without the extension) holding a placeholder; the
+	 * same are not added to the render cache and are rendered again by the
+	 * next incremental run
+	 */
+	private final Set<String> placeholderOutputs = ConcurrentHashMap.newKeySet();
 
 	@Override
 	public void paint() {
+		if (!RuntimeConfigurator.getConfig().isIntermediateFiles()) {
+			paintInMemory();
+		} else {
+			paintDotFiles();
+		}
+		logSummary("diagrams");
+	}
+
+	/**
+	 * Log the render cache hits and the placeholders of the images rendered so
+	 * far by this instance
+	 *
+	 * @param diagrams
+	 *            what the images are of ex: package diagrams
+	 */
+	void logSummary(String diagrams) {
+		if (null != renderCache) {
+			Logger.info("Reused " + cacheHits.get() + " " + diagrams + " from the render cache");
+		}
+
+		if (placeholders.get() > 0) {
+			Logger.error(placeholders.get() + " " + diagrams + " could not be laid out within "
+					+ RuntimeConfigurator.getConfig().getRenderTimeout() + " seconds; placeholder images are used");
+		}
+	}
+
+	private void paintDotFiles() {
+
 		String pathToDotFiles = RuntimeConfigurator.getConfig().getDotFilesLocation();
 		Collection<File> dotFiles = FileUtils.listFiles(new File(pathToDotFiles), new String[] { "dot" }, true);
 
-		Iterator<File> dotFileIterator = dotFiles.iterator();
+		int threads = RuntimeConfigurator.getConfig().getRenderThreads();
+		int batchSize = RuntimeConfigurator.getConfig().getRenderBatchSize();
+		AtomicInteger failures = new AtomicInteger();
+
+		// The queue is bounded; once full the submitting thread renders the
+		// image itself which throttles the submission of further files
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(threads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+
+		try {
+			List<File> batch = new ArrayList<>(batchSize);
+			for (File file : dotFiles) {
+				batch.add(file);
+				if (batch.size() == batchSize) {
+					submit(executor, batch, failures);
+					batch = new ArrayList<>(batchSize);
+				}
+			}
+
+			if (!batch.isEmpty()) {
+				submit(executor, batch, failures);
+			}
+		} finally {
+			executor.shutdown();
+		}
 
-		dotFileIterator.forEachRemaining(file -> generateImageFile(file));
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException exception) {
+			Logger.error("Interrupted while waiting for the image files to be generated", exception);
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
 
+		if (failures.get() > 0) {
+			Logger.error("Image generation failed for " + failures.get() + " of " + dotFiles.size() + " dot files");
+		}
 	}
 
-	private void generateImageFile(File dotFile) {
-		String pngDirectory = RuntimeConfigurator.getConfig().getPngFilesLocation();
+	/**
+	 * The dot source of every class is taken from the cache itself; no
+	 * directory scan and no batching
+	 */
+	private void paintInMemory() {
+		Collection<ComplexType> complexTypes = ComplexTypeCache.getComplexTypeCache().getDocumentedTypes();
+
+		int threads = RuntimeConfigurator.getConfig().getRenderThreads();
+		AtomicInteger failures = new AtomicInteger();
+
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(threads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+
+		try {
+			complexTypes.forEach(complexType -> executor.execute(() -> {
+				if (!generateImageFile(complexType)) {
+					failures.incrementAndGet();
+				}
+			}));
+		} finally {
+			executor.shutdown();
+		}
 
 		try {
-			String outputFileName = dotFile.getName();
-			outputFileName = outputFileName.substring(0, outputFileName.length() - 4);
-			outputFileName = pngDirectory + File.separator + outputFileName;
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException exception) {
+			Logger.error("Interrupted while waiting for the image files to be generated", exception);
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+
+		if (failures.get() > 0) {
+			Logger.error("Image generation failed for " + failures.get() + " of " + complexTypes.size() + " classes");
+		}
+	}
 
-			String[] dotCommand = new String[] { RuntimeConfigurator.getConfig().getDotExecutableLocation(), "-Tpng",
-					dotFile.getAbsolutePath(), "-o" + outputFileName + ".png", "-Tcmapx" };
+	@Override
+	public boolean paint(ComplexType complexType) {
+		boolean generated = false;
+		if (!RuntimeConfigurator.getConfig().isIntermediateFiles()) {
+			generated = generateImageFile(complexType);
+		} else {
+			String pathToDotFiles = RuntimeConfigurator.getConfig().getDotFilesLocation();
+			generated = render(Collections.singletonList(
+					new File(pathToDotFiles + File.separator + complexType.getFullyQualifiedName() + ".dot"))) == 0;
+		}
 
-			Process process = Runtime.getRuntime().exec(dotCommand);
+		return generated && !placeholderOutputs.contains(RuntimeConfigurator.getConfig().getPngFilesLocation()
+				+ File.separator + complexType.getFullyQualifiedName());
+	}
 
-			InputStream consoleOutput = process.getInputStream();
-			BufferedReader reader = new BufferedReader(new InputStreamReader(consoleOutput));
+	private void submit(ThreadPoolExecutor executor, List<File> batch, AtomicInteger failures) {
+		executor.execute(() -> failures.addAndGet(render(batch)));
+	}
 
-			String line = null;
-			StringBuilder map = new StringBuilder();
-			while (null != (line = reader.readLine())) {
-				map.append(line);
-				map.append(NEW_LINE);
+	/**
+	 * Render the given dot files; the images already available in the render
+	 * cache are copied from the same and the rendered ones are added to it.
+	 * 
+	 * @param dotFiles
+	 * @return the number of files for which the image could not be generated
+	 */
+	private int render(List<File> dotFiles) {
+		Map<File, String> keys = new LinkedHashMap<>();
+		List<File> pending = restoreFromCache(dotFiles, keys);
+
+		int failed = 0;
+		if (pending.size() == 1) {
+			failed = generateImageFile(pending.get(0)) ? 0 : 1;
+		} else if (pending.size() > 1) {
+			failed = generateImageFiles(pending);
+		}
+
+		// the outputs of a failed graph are deleted; hence the same are not
+		// cached
+		keys.forEach((dotFile, key) -> {
+			Map<String, File> entries = getCacheEntries(getOutputFileName(dotFile));
+			if (!placeholderOutputs.contains(getOutputFileName(dotFile))
+					&& entries.values().stream().allMatch(File::isFile)) {
+				renderCache.store(key, entries);
 			}
+		});
 
-			int response = process.waitFor();
+		return failed;
+	}
 
-			if (response != 0) {
-				Logger.error("Exception occurred while generating image file for : " + dotFile.getAbsolutePath());
-				File imageFile = new File(outputFileName + ".png");
-				if (imageFile.exists()) {
-					imageFile.delete();
+	/**
+	 * Copy the outputs of the dot files rendered by an earlier run from the
+	 * render cache
+	 * 
+	 * @param dotFiles
+	 * @param keys
+	 *            populated with the cache key of every file not found in the
+	 *            cache
+	 * @return the files still to be rendered
+	 */
+	private List<File> restoreFromCache(List<File> dotFiles, Map<File, String> keys) {
+		if (null == renderCache) {
+			return dotFiles;
+		}
+
+		List<File> pending = new ArrayList<>(dotFiles.size());
+		for (File dotFile : dotFiles) {
+			try {
+				String key = renderCache.getKey(Files.readAllBytes(dotFile.toPath()));
+				if (renderCache.restore(key, getCacheEntries(getOutputFileName(dotFile)))) {
+					cacheHits.incrementAndGet();
+					continue;
 				}
+				keys.put(dotFile, key);
+			} catch (IOException exception) {
+				Logger.error("Exception occurred while reading dot file : " + dotFile.getAbsolutePath(), exception);
+			}
+			pending.add(dotFile);
+		}
+		return pending;
+	}
+
+	/**
+	 * @param outputFileName
+	 * @return the output files of a graph mapped to their extension
+	 */
+	private Map<String, File> getCacheEntries(String outputFileName) {
+		Map<String, File> entries = new LinkedHashMap<>();
+		getOutputs().values().forEach(extension -> entries.put(extension, new File(outputFileName + "." + extension)));
+		return entries;
+	}
+
+	/**
+	 * Generate the .png and .map files for a batch of dot files using a single
+	 * dot process. With -O dot writes &lt;file&gt;.dot.png and
+	 * &lt;file&gt;.dot.cmapx (or &lt;file&gt;.dot.svg) next to every input
+	 * file; the same are then moved to the images directory. Any file for
+	 * which the batch did not produce all the outputs is rendered again on its own so that one bad graph does
+	 * not fail the whole batch. The whole batch gets the time of a single
+	 * graph; once the same runs out the graphs finished so far are kept and
+	 * the rest are rendered on their own.
+	 * 
+	 * @param dotFiles
+	 * @return the number of files for which the image could not be generated
+	 */
+	private int generateImageFiles(List<File> dotFiles) {
+		Map<String, String> outputs = getOutputs();
+
+		List<String> dotCommand = new ArrayList<>(dotFiles.size() + 4);
+		dotCommand.add(RuntimeConfigurator.getConfig().getDotExecutableLocation());
+		outputs.keySet().forEach(format -> dotCommand.add("-T" + format));
+		dotCommand.add("-O");
+		dotFiles.forEach(file -> dotCommand.add(file.getAbsolutePath()));
+
+		boolean completed = false;
+		try {
+			Process process = new ProcessBuilder(dotCommand).redirectOutput(Redirect.INHERIT)
+					.redirectError(Redirect.INHERIT).start();
+
+			// a slow graph holds up the rest of the batch; hence the batch is
+			// not given any more time than a single graph
+			if (!process.waitFor(RuntimeConfigurator.getConfig().getRenderTimeout(), TimeUnit.SECONDS)) {
+				process.destroyForcibly().waitFor();
+				Logger.error("Timed out while generating image files for a batch of " + dotFiles.size()
+						+ " dot files; rendering the unfinished ones individually");
 			} else {
-				FileUtils.writeStringToFile(new File(outputFileName + ".map"), map.toString(), "utf-8");
+				if (process.exitValue() != 0) {
+					Logger.debug("dot exited with " + process.exitValue() + " for a batch of " + dotFiles.size()
+							+ " dot files");
+				}
+				completed = true;
+			}
+		} catch (IOException exception) {
+			Logger.error("Exception occurred while generating image files for a batch of " + dotFiles.size()
+					+ " dot files", exception);
+		} catch (InterruptedException exception) {
+			Logger.error("Interrupted while generating image files for a batch of " + dotFiles.size() + " dot files");
+			Thread.currentThread().interrupt();
+			return dotFiles.size();
+		}
+
+		// a killed process leaves the graph it was working on incomplete; the
+		// ones before the same are complete
+		int finished = completed ? dotFiles.size() : getFinishedCount(dotFiles, outputs);
+
+		int failures = 0;
+		for (int index = 0; index < dotFiles.size(); index++) {
+			File dotFile = dotFiles.get(index);
+
+			if (!(index < finished && moveOutputs(dotFile, outputs))) {
+				outputs.keySet().forEach(format -> deleteQuietly(new File(dotFile.getPath() + "." + format)));
+
+				if (!generateImageFile(dotFile)) {
+					failures++;
+				}
+			}
+		}
+
+		return failures;
+	}
+
+	/**
+	 * dot renders the graphs of a batch one after the other; a graph is
+	 * complete once any output of a later graph is written. The last graph
+	 * having any output may be incomplete.
+	 * 
+	 * @param dotFiles
+	 * @param outputs
+	 * @return the number of graphs at the start of the batch rendered
+	 *         completely by a process killed midway
+	 */
+	private int getFinishedCount(List<File> dotFiles, Map<String, String> outputs) {
+		for (int index = dotFiles.size() - 1; index >= 0; index--) {
+			for (String format : outputs.keySet()) {
+				if (new File(dotFiles.get(index).getPath() + "." + format).exists()) {
+					return index;
+				}
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Move the outputs written by dot -O next to the dot file to the images
+	 * directory
+	 * 
+	 * @param dotFile
+	 * @param outputs
+	 * @return false if any of the outputs is missing
+	 */
+	private boolean moveOutputs(File dotFile, Map<String, String> outputs) {
+		for (String format : outputs.keySet()) {
+			if (!new File(dotFile.getPath() + "." + format).isFile()) {
+				return false;
+			}
+		}
+
+		String outputFileName = getOutputFileName(dotFile);
+		try {
+			for (Entry<String, String> output : outputs.entrySet()) {
+				Files.move(Paths.get(dotFile.getPath() + "." + output.getKey()),
+						Paths.get(outputFileName + "." + output.getValue()), StandardCopyOption.REPLACE_EXISTING);
 			}
-		} catch (IOException | InterruptedException exception) {
+			return true;
+		} catch (IOException exception) {
+			Logger.error("Exception occurred while moving image file for : " + dotFile.getAbsolutePath(), exception);
+			return false;
+		}
+	}
+
+	/**
+	 * @return the dot output formats mapped to the extension of the
+	 *         corresponding file in the images directory
+	 */
+	private Map<String, String> getOutputs() {
+		Map<String, String> outputs = new LinkedHashMap<>();
+		if (ImageFormat.SVG == RuntimeConfigurator.getConfig().getImageFormat()) {
+			outputs.put("svg", "svg");
+		} else {
+			outputs.put("png", "png");
+			outputs.put("cmapx", "map");
+		}
+		return outputs;
+	}
+
+	private String getOutputFileName(File dotFile) {
+		String pngDirectory = RuntimeConfigurator.getConfig().getPngFilesLocation();
+
+		String outputFileName = dotFile.getName();
+		outputFileName = outputFileName.substring(0, outputFileName.length() - 4);
+		return pngDirectory + File.separator + outputFileName;
+	}
+
+	/**
+	 * Generate the .png and .map (or the .svg) files for the given dot file.
+	 * The partial output files are deleted if dot fails or times out.
+	 * 
+	 * @param dotFile
+	 * @return true if the image was generated
+	 */
+	private boolean generateImageFile(File dotFile) {
+		String outputFileName = getOutputFileName(dotFile);
+		ImageFormat imageFormat = RuntimeConfigurator.getConfig().getImageFormat();
+
+		File imageFile = new File(outputFileName + "." + imageFormat.getExtension());
+		File mapFile = new File(outputFileName + ".map");
+
+		try {
+			ProcessBuilder processBuilder = null;
+			if (ImageFormat.SVG == imageFormat) {
+				// the links are part of the svg itself
+				processBuilder = new ProcessBuilder(RuntimeConfigurator.getConfig().getDotExecutableLocation(),
+						"-Tsvg", dotFile.getAbsolutePath(), "-o" + imageFile.getPath())
+								.redirectOutput(Redirect.INHERIT);
+			} else {
+				// the cmapx output is written to stdout; the same goes
+				// straight into the .map file
+				processBuilder = new ProcessBuilder(RuntimeConfigurator.getConfig().getDotExecutableLocation(),
+						"-Tpng", dotFile.getAbsolutePath(), "-o" + imageFile.getPath(), "-Tcmapx")
+								.redirectOutput(mapFile);
+			}
+
+			Process process = processBuilder.redirectError(Redirect.INHERIT).start();
+
+			if (!process.waitFor(RuntimeConfigurator.getConfig().getRenderTimeout(), TimeUnit.SECONDS)) {
+				process.destroyForcibly().waitFor();
+				Logger.error("Timed out while generating image file for : " + dotFile.getAbsolutePath()
+						+ "; using a placeholder image");
+				deleteQuietly(imageFile);
+				deleteQuietly(mapFile);
+				return writePlaceholder(outputFileName, imageFormat, imageFile, mapFile);
+			} else if (process.exitValue() != 0) {
+				Logger.error("Exception occurred while generating image file for : " + dotFile.getAbsolutePath());
+			} else {
+				return true;
+			}
+		} catch (IOException exception) {
 			Logger.error("Exception occurred while generating image file for : " + dotFile.getAbsolutePath(),
 					exception);
+		} catch (InterruptedException exception) {
+			Logger.error("Interrupted while generating image file for : " + dotFile.getAbsolutePath());
+			Thread.currentThread().interrupt();
+		}
+
+		deleteQuietly(imageFile);
+		deleteQuietly(mapFile);
+		return false;
+	}
+
+	/**
+	 * Generate the .png (or .svg) file for the given class feeding its in
+	 * memory dot source to dot through the standard input. For png the cmapx
+	 * output is kept with the class for the html page. The dot source is
+	 * released once rendered.
+	 * 
+	 * @param complexType
+	 * @return true if the image was generated
+	 */
+	private boolean generateImageFile(ComplexType complexType) {
+		String className = complexType.getFullyQualifiedName();
+		byte[] dotSource = complexType.getDotSource();
+		complexType.setDotSource(null);
+
+		if (null == dotSource) {
+			Logger.error("No dot source available for : " + className);
+			return false;
+		}
+
+		ImageFormat imageFormat = RuntimeConfigurator.getConfig().getImageFormat();
+		String imageMap = render(className, dotSource, imageFormat);
+		if (null == imageMap) {
+			return false;
+		}
+
+		complexType.setImageMap(ImageFormat.PNG == imageFormat ? imageMap : null);
+		return true;
+	}
+
+	/**
+	 * Render the given dot source to &lt;images&gt;/&lt;name&gt;.png (or
+	 * .svg) feeding the same to dot through the standard input. For png the
+	 * cmapx output is read from the standard output. The outputs are taken
+	 * from (and added to) the render cache if configured.
+	 * 
+	 * @param name
+	 *            of the image file without the extension
+	 * @param dotSource
+	 *            utf-8 encoded
+	 * @param imageFormat
+	 * @return the image map for png; empty for svg. null if the image could
+	 *         not be generated
+	 */
+	public String render(String name, byte[] dotSource, ImageFormat imageFormat) {
+		File imageFile = new File(RuntimeConfigurator.getConfig().getPngFilesLocation() + File.separator + name
+				+ "." + imageFormat.getExtension());
+
+		String key = null;
+		if (null != renderCache) {
+			key = renderCache.getKey(dotSource);
+			String imageMap = restoreFromCache(key, imageFormat, imageFile);
+			if (null != imageMap) {
+				cacheHits.incrementAndGet();
+				return imageMap;
+			}
+		}
+
+		try {
+			String imageMap = runDot(name, dotSource, imageFormat, imageFile);
+			if (null != imageMap && null != key) {
+				if (ImageFormat.PNG == imageFormat) {
+					renderCache.store(key, "map", imageMap);
+				}
+				renderCache.store(key, Collections.singletonMap(imageFormat.getExtension(), imageFile));
+			}
+			return imageMap;
+		} catch (TimeoutException exception) {
+			// the placeholder is not cached; a later run may have the time
+			Logger.error("Timed out while generating image file for : " + name + "; using a placeholder image");
+			return renderPlaceholder(name, imageFormat, imageFile);
+		}
+	}
+
+	/**
+	 * Feed the given dot source to dot through the standard input; the
+	 * process is killed once it runs longer than
+	 * RuntimeConfigurator.getRenderTimeout() seconds
+	 * 
+	 * @param name
+	 * @param dotSource
+	 * @param imageFormat
+	 * @param imageFile
+	 * @return the image map for png; empty for svg. null if dot failed
+	 * @throws TimeoutException
+	 *             if dot was killed; the partial image is deleted
+	 */
+	private String runDot(String name, byte[] dotSource, ImageFormat imageFormat, File imageFile)
+			throws TimeoutException {
+		List<String> dotCommand = new ArrayList<>(4);
+		dotCommand.add(RuntimeConfigurator.getConfig().getDotExecutableLocation());
+		dotCommand.add("-T" + imageFormat.getExtension());
+		dotCommand.add("-o" + imageFile.getPath());
+		if (ImageFormat.PNG == imageFormat) {
+			dotCommand.add("-Tcmapx");
+		}
+
+		ScheduledFuture<?> watchdog = null;
+		boolean timedOut = false;
+		try {
+			Process process = new ProcessBuilder(dotCommand)
+					.redirectOutput(ImageFormat.PNG == imageFormat ? Redirect.PIPE : Redirect.INHERIT)
+					.redirectError(Redirect.INHERIT).start();
+
+			// waitFor(timeout) does not help while blocked on the streams
+			watchdog = WATCHDOG.schedule(() -> {
+				process.destroyForcibly();
+			}, RuntimeConfigurator.getConfig().getRenderTimeout(), TimeUnit.SECONDS);
+
+			// dot reads the whole graph before writing anything; hence the
+			// input is written completely before the output is read
+			try (OutputStream stream = process.getOutputStream()) {
+				stream.write(dotSource);
+			}
+
+			String imageMap = "";
+			if (ImageFormat.PNG == imageFormat) {
+				try (InputStream stream = process.getInputStream()) {
+					imageMap = IOUtils.toString(stream, StandardCharsets.UTF_8);
+				}
+			}
+
+			int exitValue = process.waitFor();
+			if (!watchdog.cancel(false)) {
+				timedOut = true;
+			} else if (exitValue != 0) {
+				Logger.error("Exception occurred while generating image file for : " + name);
+			} else {
+				return imageMap;
+			}
+		} catch (IOException exception) {
+			// the streams are closed once the process is killed
+			timedOut = null != watchdog && watchdog.isDone() && !watchdog.isCancelled();
+			if (!timedOut) {
+				Logger.error("Exception occurred while generating image file for : " + name, exception);
+			}
+		} catch (InterruptedException exception) {
+			Logger.error("Interrupted while generating image file for : " + name);
+			Thread.currentThread().interrupt();
+		} finally {
+			if (null != watchdog) {
+				watchdog.cancel(false);
+			}
+		}
+
+		deleteQuietly(imageFile);
+		if (timedOut) {
+			throw new TimeoutException(name);
 		}
+		return null;
 	}
 
+	/**
+	 * Render a small graph in place of the diagram that dot could not lay out
+	 * in time; the same names the class so that the page still has an image
+	 * (and an image map of the same name)
+	 * 
+	 * @param name
+	 * @param imageFormat
+	 * @param imageFile
+	 * @return the image map for png; empty for svg. null if even the
+	 *         placeholder could not be generated
+	 */
+	private String renderPlaceholder(String name, ImageFormat imageFormat, File imageFile) {
+		String placeholder = "digraph \"" + name + "\" {" + NEW_LINE
+				+ "	graph [bgcolor=\"#ffffff\" fontname=\"Helvetica\" fontsize=\"11\"];" + NEW_LINE
+				+ "	node [fontname=\"Helvetica\" fontsize=\"11\" shape=\"box\" style=\"dashed\"];" + NEW_LINE
+				+ "	\"" + name + "\" [label=\"" + name + "\\n\\nThe diagram could not be laid out within "
+				+ RuntimeConfigurator.getConfig().getRenderTimeout() + " seconds\"];" + NEW_LINE
+				+ "}";
+
+		try {
+			String imageMap = runDot(name, placeholder.getBytes(StandardCharsets.UTF_8), imageFormat, imageFile);
+			if (null != imageMap) {
+				placeholders.incrementAndGet();
+
+				// the outputs are not to be cached as the image of the dot
+				// source
+				placeholderOutputs.add(RuntimeConfigurator.getConfig().getPngFilesLocation() + File.separator + name);
+			}
+			return imageMap;
+		} catch (TimeoutException exception) {
+			Logger.error("Timed out while generating the placeholder image for : " + name);
+			return null;
+		}
+	}
+
+	/**
+	 * Copy an image from the render cache; the image map is read as if
+	 * rendered by dot
+	 * 
+	 * @param key
+	 * @param imageFormat
+	 * @param imageFile
+	 * @return the image map for png; empty for svg. null if the outputs are
+	 *         not cached
+	 */
+	private String restoreFromCache(String key, ImageFormat imageFormat, File imageFile) {
+		String imageMap = "";
+		if (ImageFormat.PNG == imageFormat) {
+			imageMap = renderCache.read(key, "map");
+			if (null == imageMap) {
+				return null;
+			}
+		}
+
+		if (!renderCache.restore(key, Collections.singletonMap(imageFormat.getExtension(), imageFile))) {
+			return null;
+		}
+		return imageMap;
+	}
+
+	/**
+	 * @param outputFileName
+	 * @param imageFormat
+	 * @param imageFile
+	 * @param mapFile
+	 * @return true if the placeholder image (and its map) was written
+	 */
+	private boolean writePlaceholder(String outputFileName, ImageFormat imageFormat, File imageFile, File mapFile) {
+		String name = outputFileName.substring(outputFileName.lastIndexOf(File.separator) + 1);
+		String imageMap = renderPlaceholder(name, imageFormat, imageFile);
+		if (null == imageMap) {
+			return false;
+		}
+
+		if (ImageFormat.PNG == imageFormat) {
+			try {
+				FileUtils.writeStringToFile(mapFile, imageMap, StandardCharsets.UTF_8);
+			} catch (IOException exception) {
+				Logger.error("Exception occurred while writing the placeholder map for : " + name, exception);
+				deleteQuietly(imageFile);
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void deleteQuietly(File file) {
+		if (file.exists()) {
+			file.delete();
+		}
+	}
 }
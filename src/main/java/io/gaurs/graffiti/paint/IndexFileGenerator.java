@@ -3,22 +3,39 @@ package io.gaurs.graffiti.paint;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Iterator;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.pmw.tinylog.Logger;
 
+import io.gaurs.graffiti.classpath.ClassPath;
 import io.gaurs.graffiti.config.RuntimeConfigurator;
 import io.gaurs.graffiti.model.ComplexType;
 import io.gaurs.graffiti.model.ComplexTypeCache;
 import io.gaurs.graffiti.model.ExceptionalScenarios;
+import io.gaurs.graffiti.model.MavenArtifact;
 
 public class IndexFileGenerator extends HtmlFileGenerator {
 
 	private static final ExceptionalScenarios exceptionalScenarios = ExceptionalScenarios.getInstance();
 
+	/**
+	 * Directory of the class list shards; relative to the output location
+	 */
+	private static final String SHARDS = "index";
+
+	/**
+	 * Number of classes per shard
+	 */
+	private static final int SHARD_SIZE = 1000;
+
 	@Override
 	public void paint() {
 		Document indexPage = null;
@@ -27,8 +44,7 @@ public class IndexFileGenerator extends HtmlFileGenerator {
 			InputStream stream = Thread.currentThread().getContextClassLoader().getResourceAsStream("index.html");
 			indexPage = Jsoup.parse(stream, "utf-8", "");
 
-			String jarName = RuntimeConfigurator.getConfig().getJarFile();
-			jarName = jarName.substring(jarName.lastIndexOf(File.separator) + 1);
+			String jarName = getJarName();
 
 			// set the title
 			setTitleName(indexPage, jarName);
@@ -36,6 +52,12 @@ public class IndexFileGenerator extends HtmlFileGenerator {
 			// set the label
 			setLabel(indexPage, jarName);
 
+			// link the overview of the packages
+			if (RuntimeConfigurator.getConfig().isPackageDiagrams()) {
+				indexPage.getElementById("jarDetails").parent().after("<li><a href=\"" + PackageFileGenerator.OVERVIEW
+						+ ".html\" id=\"packages\">Packages</a></li>");
+			}
+
 			// populate classes count
 			setVariousCounts(indexPage);
 
@@ -64,23 +86,76 @@ public class IndexFileGenerator extends HtmlFileGenerator {
 		exceptionalScenarios.populate(tableBody);
 	}
 
+	/**
+	 * The classes are not part of the page itself; the same are written to
+	 * the shards of SHARD_SIZE classes each and the page loads the shards of
+	 * the rows scrolled into view. The page holds the number of classes and
+	 * the location of the shards only; hence its size does not depend upon
+	 * the number of classes.
+	 * 
+	 * @param indexPage
+	 */
 	private void populateClassesTable(Document indexPage) {
-		Element table = indexPage.getElementById("classNames");
-		Element tableBody = table.appendElement("tbody");
+		List<ComplexType> complexTypes = new ArrayList<>(
+				ComplexTypeCache.getComplexTypeCache().getDocumentedTypes());
+
+		// sorted by the name of the class, same as the first column
+		complexTypes.sort(Comparator.comparing(ComplexType::getName)
+				.thenComparing(ComplexType::getFullyQualifiedName));
+
+		Element classList = indexPage.getElementById("classList");
+		classList.attr("data-count", String.valueOf(complexTypes.size()));
+		classList.attr("data-shard-size", String.valueOf(SHARD_SIZE));
+		classList.attr("data-shards", SHARDS + "/");
 
-		ComplexTypeCache.getComplexTypeCache().entrySet().iterator()
-				.forEachRemaining(entry -> populateRow(entry.getValue(), tableBody));
+		writeShards(complexTypes);
 	}
 
-	private void populateRow(ComplexType complexType, Element tableBody) {
-		Element row = tableBody.appendElement("tr");
+	/**
+	 * Write &lt;output&gt;/index/classes-&lt;n&gt;.js for every SHARD_SIZE
+	 * classes; the shards of an earlier run are deleted first. Every shard is
+	 * a single call passing a json array of [class name, package, link] rows
+	 * ex: classList.shard(0,[["IOUtils","org.apache.commons.io","org.apache.commons.io.IOUtils.html"]]);
+	 * 
+	 * @param complexTypes
+	 */
+	private void writeShards(List<ComplexType> complexTypes) {
+		File directory = new File(RuntimeConfigurator.getConfig().getOutputLocation() + File.separator + SHARDS);
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			Logger.error("Can not create the index directory @ " + directory.getPath());
+			return;
+		}
 
-		Element classNameColumn = row.appendElement("td");
-		Element packageNameColumn = row.appendElement("td");
+		File[] previous = directory.listFiles((dir, name) -> name.startsWith("classes-") && name.endsWith(".js"));
+		if (null != previous) {
+			for (File shard : previous) {
+				if (!shard.delete()) {
+					Logger.error("Could not delete the index shard : " + shard.getPath());
+				}
+			}
+		}
 
-		classNameColumn.attr("border", "1");
-		Element link = classNameColumn.appendElement("a");
+		for (int from = 0; from < complexTypes.size(); from += SHARD_SIZE) {
+			int shard = from / SHARD_SIZE;
+			File file = new File(directory, "classes-" + shard + ".js");
+
+			try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+				writer.write("classList.shard(" + shard + ",[");
+				for (int index = from; index < Math.min(from + SHARD_SIZE, complexTypes.size()); index++) {
+					if (index > from) {
+						writer.write(",");
+					}
+					writeRow(writer, complexTypes.get(index));
+				}
+				writer.write("]);");
+				writer.write(NEW_LINE);
+			} catch (IOException exception) {
+				Logger.error("Exception occurred while writing the index shard : " + file.getPath(), exception);
+			}
+		}
+	}
 
+	private void writeRow(Writer writer, ComplexType complexType) throws IOException {
 		String value = complexType.getFullyQualifiedName();
 		value = value.replaceAll("&lt;", "<");
 		value = value.replaceAll("&gt;", ">");
@@ -88,26 +163,46 @@ public class IndexFileGenerator extends HtmlFileGenerator {
 
 		// if complex type is generic type; the index page lists the
 		// corresponding entry to 404
-		if (complexType.isGeneric()) {
-			link.attr("href", "404.html");
-		} else {
-			link.attr("href", value + ".html");
-		}
-
-		link.text(complexType.getName());
+		String link = complexType.isGeneric() ? "404.html" : value + ".html";
 
 		String fullyQualifiedName = complexType.getFullyQualifiedName();
 		Logger.debug("Populaiting row for : " + fullyQualifiedName);
 
 		// Handle classes in default package
-		if (fullyQualifiedName.lastIndexOf(".") < 0) {
-			packageNameColumn.text("");
-		} else {
-			packageNameColumn.text(fullyQualifiedName.substring(0, fullyQualifiedName.lastIndexOf(".")));
-		}
-
-		packageNameColumn.attr("border", "1");
+		String packageName = fullyQualifiedName.lastIndexOf(".") < 0 ? ""
+				: fullyQualifiedName.substring(0, fullyQualifiedName.lastIndexOf("."));
+
+		writer.write("[");
+		writeString(writer, complexType.getName());
+		writer.write(",");
+		writeString(writer, packageName);
+		writer.write(",");
+		writeString(writer, link);
+		writer.write("]");
+	}
 
+	/**
+	 * Writes the given text as a json string
+	 * 
+	 * @param writer
+	 * @param text
+	 * @throws IOException
+	 */
+	private void writeString(Writer writer, String text) throws IOException {
+		writer.write('"');
+		for (int index = 0; index < text.length(); index++) {
+			char character = text.charAt(index);
+			if ('"' == character || '\\' == character) {
+				writer.write('\\');
+				writer.write(character);
+			} else if (character < 0x20 || '\u2028' == character || '\u2029' == character) {
+				// the line separators end a string literal of the older scripts
+				writer.write(String.format("\\u%04x", (int) character));
+			} else {
+				writer.write(character);
+			}
+		}
+		writer.write('"');
 	}
 
 	private void populateMavenDetails(Document indexPage) {
@@ -128,6 +223,20 @@ public class IndexFileGenerator extends HtmlFileGenerator {
 
 		Element dependencyCount = indexPage.getElementById("dependencyCount");
 		dependencyCount.text(String.valueOf(RuntimeConfigurator.getConfig().getDependenciesCount()));
+
+		// the rest of the artifacts embedded in the jars are listed below the
+		// primary one
+		if (config.getArtifacts().size() > 1) {
+			String primary = config.getGroup() + ":" + config.getArtifactId() + ":" + config.getVersion();
+
+			Element details = version.parent().parent();
+			for (MavenArtifact artifact : config.getArtifacts()) {
+				if (!primary.equals(artifact.getCoordinates())) {
+					details.appendElement("li").addClass("list-group-item").addClass("small")
+							.text(artifact.getCoordinates());
+				}
+			}
+		}
 	}
 
 	private void setVariousCounts(Document indexPage) {
@@ -151,4 +260,23 @@ public class IndexFileGenerator extends HtmlFileGenerator {
 		title.text(jarName);
 	}
 
+	/**
+	 * @return the name of the documented jar file or directory; the first one
+	 *         followed by the number of the rest if there are many ex:
+	 *         commons-io-2.5.jar (+2)
+	 */
+	private String getJarName() {
+		List<String> documented = RuntimeConfigurator.getConfig().getPages();
+		if (documented.isEmpty()) {
+			documented = new ArrayList<>();
+			for (File entry : ClassPath.getEntries(RuntimeConfigurator.getConfig().getJarFile())) {
+				documented.add(entry.getPath());
+			}
+		}
+
+		String jarName = documented.get(0);
+		jarName = jarName.substring(jarName.lastIndexOf(File.separator) + 1);
+		return documented.size() > 1 ? jarName + " (+" + (documented.size() - 1) + ")" : jarName;
+	}
+
 }
@@ -0,0 +1,342 @@
+package io.gaurs.graffiti.paint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.pmw.tinylog.Logger;
+
+import io.gaurs.graffiti.config.ImageFormat;
+import io.gaurs.graffiti.config.RuntimeConfigurator;
+import io.gaurs.graffiti.model.ComplexType;
+import io.gaurs.graffiti.model.ComplexTypeCache;
+import io.gaurs.graffiti.model.PackageGraph;
+
+/**
+ * Generates a page for every package with the diagram of the packages its
+ * fields refer to and the ones referring to it; the edges are labelled with
+ * the number of such fields. The overview page (packages.html) shows all the
+ * packages in a single svg diagram so that the same can be zoomed. Meant for
+ * the large jars where the diagrams of the individual classes give no
+ * overview.
+ *
+ * The diagrams are rendered once per package (and not once per class) from
+ * the {@link PackageGraph}; the dot source is fed to dot through the standard
+ * input and is not written to the dot directory. The render cache is used if
+ * configured.
+ *
+ * @author gaurs
+ *
+ */
+public class PackageFileGenerator extends HtmlFileGenerator {
+
+	/**
+	 * Name of the overview page and its diagram
+	 */
+	public static final String OVERVIEW = "packages";
+
+	private final ImageGenerator imageGenerator = new ImageGenerator();
+
+	@Override
+	public void paint() {
+		PackageGraph packageGraph = new PackageGraph(ComplexTypeCache.getComplexTypeCache());
+		Logger.info("Generating diagrams for " + packageGraph.getPackages().size() + " packages");
+
+		// the packages are few compared to the classes; one task per package
+		ExecutorService executor = Executors.newFixedThreadPool(RuntimeConfigurator.getConfig().getRenderThreads());
+		try {
+			List<Future<?>> pages = new ArrayList<>();
+			for (String packageName : packageGraph.getPackages()) {
+				pages.add(executor.submit(() -> paint(packageName, packageGraph)));
+			}
+			pages.add(executor.submit(() -> paintOverview(packageGraph)));
+
+			// a failed page does not stop the rest
+			for (Future<?> page : pages) {
+				try {
+					page.get();
+				} catch (ExecutionException exception) {
+					Logger.error("Exception occurred while generating a package page", exception.getCause());
+				}
+			}
+		} catch (InterruptedException exception) {
+			Logger.error("Interrupted while generating the package pages", exception);
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// the image generator of the classes keeps its own counts
+		imageGenerator.logSummary("package diagrams");
+	}
+
+	/**
+	 * @param packageName
+	 * @return name of the page of the given package without the extension ex:
+	 *         package-io.gaurs.graffiti
+	 */
+	public static String getPageName(String packageName) {
+		// default is a keyword; hence no package is named so
+		return "package-" + (PackageGraph.DEFAULT_PACKAGE.equals(packageName) ? "default" : packageName);
+	}
+
+	private void paint(String packageName, PackageGraph packageGraph) {
+		Document page = loadTemplate();
+		if (null == page) {
+			return;
+		}
+
+		String label = getLabel(packageName);
+		List<ComplexType> classes = packageGraph.getClasses(packageName);
+		Map<String, Integer> dependencies = packageGraph.getDependencies(packageName);
+		Map<String, Integer> dependents = packageGraph.getDependents(packageName);
+
+		page.getElementsByTag("title").first().text("Graffiti | " + label);
+		page.getElementById("currentPackage").text(label);
+		page.getElementById("packageName").text(label);
+		page.getElementById("description").text("The package contains " + classes.size()
+				+ " classes. Its fields refer to " + dependencies.size() + " packages and the fields of "
+				+ dependents.size() + " packages refer to it.");
+
+		// the package itself followed by the ones it refers to and the ones
+		// referring to it
+		Map<String, Integer> shown = new LinkedHashMap<>();
+		shown.put(packageName, classes.size());
+		dependencies.keySet().forEach(other -> shown.put(other, packageGraph.getClasses(other).size()));
+		dependents.keySet().forEach(other -> shown.put(other, packageGraph.getClasses(other).size()));
+
+		StringBuilder edges = new StringBuilder();
+		dependencies.forEach((other, weight) -> appendEdge(edges, packageName, other, weight));
+		dependents.forEach((other, weight) -> appendEdge(edges, other, packageName, weight));
+
+		String pageName = getPageName(packageName);
+		ImageFormat imageFormat = RuntimeConfigurator.getConfig().getImageFormat();
+		String imageMap = imageGenerator.render(pageName, getDotSource(pageName, shown, packageName, edges),
+				imageFormat);
+		populateDiagram(page, pageName, imageFormat, imageMap);
+
+		Element classNames = page.getElementById("classNames").appendElement("tbody");
+		for (ComplexType complexType : classes) {
+			Element row = classNames.appendElement("tr");
+			Element link = row.appendElement("td").attr("border", "1").appendElement("a");
+			link.attr("href", complexType.isGeneric() ? "404.html" : complexType.getFullyQualifiedName() + ".html");
+			link.text(complexType.getName());
+			row.appendElement("td").attr("border", "1").text(complexType.getFullyQualifiedName());
+		}
+
+		populatePackages(page.getElementById("dependencies"), dependencies, packageGraph);
+		populatePackages(page.getElementById("dependents"), dependents, packageGraph);
+
+		writeToFile(pageName, RuntimeConfigurator.getConfig().getOutputLocation(), page.html());
+	}
+
+	/**
+	 * The overview lists the packages in place of the classes; the diagram is
+	 * always an svg image as the same is to be zoomed
+	 *
+	 * @param packageGraph
+	 */
+	private void paintOverview(PackageGraph packageGraph) {
+		Document page = loadTemplate();
+		if (null == page) {
+			return;
+		}
+
+		page.getElementsByTag("title").first().text("Graffiti | Packages");
+		page.getElementById("currentPackage").text("Packages");
+		page.getElementById("packages").parent().remove();
+		page.getElementById("packageName").text("Packages");
+		page.getElementById("description").text("The jar contains " + packageGraph.getPackages().size()
+				+ " packages. The edges are labelled with the number of fields referring to the other package.");
+
+		Map<String, Integer> shown = new LinkedHashMap<>();
+		StringBuilder edges = new StringBuilder();
+		for (String packageName : packageGraph.getPackages()) {
+			shown.put(packageName, packageGraph.getClasses(packageName).size());
+		}
+		for (String packageName : packageGraph.getPackages()) {
+			packageGraph.getDependencies(packageName).forEach((other, weight) -> {
+				shown.putIfAbsent(other, 0);
+				appendEdge(edges, packageName, other, weight);
+			});
+		}
+
+		String imageMap = imageGenerator.render(OVERVIEW, getDotSource(OVERVIEW, shown, null, edges),
+				ImageFormat.SVG);
+		populateDiagram(page, OVERVIEW, ImageFormat.SVG, imageMap);
+
+		page.getElementById("classesTab").text("Packages");
+		page.getElementById("nameHeader").text("Package");
+		page.getElementById("detailHeader").text("Classes");
+		Element classNames = page.getElementById("classNames").appendElement("tbody");
+		for (String packageName : packageGraph.getPackages()) {
+			Element row = classNames.appendElement("tr");
+			row.appendElement("td").attr("border", "1").appendElement("a")
+					.attr("href", getPageName(packageName) + ".html").text(getLabel(packageName));
+			row.appendElement("td").attr("border", "1")
+					.text(String.valueOf(packageGraph.getClasses(packageName).size()));
+		}
+
+		// the edges of every package are listed on its own page
+		page.getElementById("sectionB").remove();
+		page.getElementById("sectionC").remove();
+		page.getElementById("classesTab").parent().siblingElements().remove();
+
+		writeToFile(OVERVIEW, RuntimeConfigurator.getConfig().getOutputLocation(), page.html());
+	}
+
+	private void populatePackages(Element table, Map<String, Integer> packages, PackageGraph packageGraph) {
+		Element tableBody = table.appendElement("tbody");
+		for (Entry<String, Integer> entry : packages.entrySet()) {
+			Element row = tableBody.appendElement("tr");
+			Element cell = row.appendElement("td").attr("border", "1");
+
+			// the packages of the class path entries that are not documented
+			// have no page
+			if (packageGraph.getClasses(entry.getKey()).isEmpty()) {
+				cell.text(getLabel(entry.getKey()));
+			} else {
+				cell.appendElement("a").attr("href", getPageName(entry.getKey()) + ".html")
+						.text(getLabel(entry.getKey()));
+			}
+			row.appendElement("td").attr("border", "1").text(String.valueOf(entry.getValue()));
+		}
+	}
+
+	/**
+	 * The png image followed by its image map; the svg image carries its own
+	 * links and is embedded as an object so that the same are clickable
+	 *
+	 * @param page
+	 * @param pageName
+	 * @param imageFormat
+	 * @param imageMap
+	 *            null if the image could not be generated
+	 */
+	private void populateDiagram(Document page, String pageName, ImageFormat imageFormat, String imageMap) {
+		Element diagram = page.getElementById("diagram");
+		if (null == imageMap) {
+			diagram.appendElement("p").addClass("text-danger").text("The diagram could not be generated");
+			return;
+		}
+
+		String image = "images/" + pageName + "." + imageFormat.getExtension();
+		if (ImageFormat.SVG == imageFormat) {
+			diagram.appendElement("object").attr("id", "dependencyMatrix").attr("type", "image/svg+xml")
+					.attr("data", image);
+		} else {
+			diagram.appendElement("img").attr("id", "dependencyMatrix").attr("src", image).attr("usemap",
+					"#" + pageName);
+			diagram.append(imageMap);
+		}
+	}
+
+	/**
+	 * @param graphName
+	 * @param packages
+	 *            the packages to be drawn along with the number of their
+	 *            classes
+	 * @param current
+	 *            the package the diagram is drawn for; highlighted. null for
+	 *            the overview
+	 * @param edges
+	 * @return the utf-8 encoded dot source
+	 */
+	private byte[] getDotSource(String graphName, Map<String, Integer> packages, String current,
+			CharSequence edges) {
+		StringBuilder content = new StringBuilder();
+		content.append("digraph \"").append(graphName).append("\" {").append(NEW_LINE);
+		content.append(getHeader());
+
+		for (Entry<String, Integer> entry : packages.entrySet()) {
+			String packageName = entry.getKey();
+			content.append("	\"").append(getLabel(packageName)).append("\" [");
+
+			if (packageName.equals(current)) {
+				content.append("fillcolor=\"#d9edf7\" ");
+			}
+
+			// the packages without documented classes have no page
+			if (entry.getValue() > 0) {
+				content.append("label=\"").append(getLabel(packageName)).append("\\n").append(entry.getValue())
+						.append(1 == entry.getValue() ? " class" : " classes").append("\" URL=\"")
+						.append(getPageName(packageName)).append(".html\"");
+			} else {
+				content.append("style=\"rounded,dashed\"");
+			}
+			content.append("];").append(NEW_LINE);
+		}
+
+		content.append(edges);
+		content.append("}");
+		return content.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * The heavier dependencies are drawn thicker
+	 *
+	 * @param edges
+	 * @param from
+	 * @param to
+	 * @param weight
+	 *            number of fields
+	 */
+	private void appendEdge(StringBuilder edges, String from, String to, int weight) {
+		double penWidth = Math.min(6, 1 + Math.log(weight) / Math.log(2));
+		edges.append("	\"").append(getLabel(from)).append("\" -> \"").append(getLabel(to)).append("\" [label=\"")
+				.append(weight).append("\" penwidth=\"").append(String.format(Locale.ROOT, "%.1f", penWidth)).append("\"];")
+				.append(NEW_LINE);
+	}
+
+	private String getLabel(String packageName) {
+		return PackageGraph.DEFAULT_PACKAGE.equals(packageName) ? "(default package)" : packageName;
+	}
+
+	private String getHeader() {
+		return "	graph [" + NEW_LINE
+				+ "		rankdir=\"LR\"" + NEW_LINE
+				+ "		bgcolor=\"#ffffff\"" + NEW_LINE
+				+ "		label=\"\\nGenerated by Graffiti (http://graffiti.gaurs.io)\"" + NEW_LINE
+				+ "		labeljust=\"l\"" + NEW_LINE
+				+ "		fontname=\"Helvetica\"" + NEW_LINE
+				+ "		fontsize=\"11\"" + NEW_LINE
+				+ "		];" + NEW_LINE
+				+ "	node [" + NEW_LINE
+				+ "		fontname=\"Helvetica\"" + NEW_LINE
+				+ "		fontsize=\"11\"" + NEW_LINE
+				+ "		shape=\"box\"" + NEW_LINE
+				+ "		style=\"rounded,filled\"" + NEW_LINE
+				+ "		fillcolor=\"#f5f5f5\"" + NEW_LINE
+				// svg images are embedded as objects; the links must open in the page itself
+				+ "		target=\"_top\"" + NEW_LINE
+				+ "		];" + NEW_LINE
+				+ "	edge [" + NEW_LINE
+				+ "		fontname=\"Helvetica\"" + NEW_LINE
+				+ "		fontsize=\"9\"" + NEW_LINE
+				+ "		color=\"#555555\"" + NEW_LINE
+				+ "		];" + NEW_LINE;
+	}
+
+	private Document loadTemplate() {
+		try (InputStream stream = Thread.currentThread().getContextClassLoader()
+				.getResourceAsStream("package.html")) {
+			return Jsoup.parse(stream, "utf-8", "");
+		} catch (IOException exception) {
+			Logger.error("Exception occurred while loading package template file ", exception);
+			return null;
+		}
+	}
+}
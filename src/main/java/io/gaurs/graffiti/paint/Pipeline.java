@@ -0,0 +1,136 @@
+package io.gaurs.graffiti.paint;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.pmw.tinylog.Logger;
+
+import io.gaurs.graffiti.model.ComplexType;
+import io.gaurs.graffiti.model.ComplexTypeCache;
+
+/**
+ * Runs every class through a chain of {@link ComplexTypeGenerator}s ex: dot
+ * file -&gt; image -&gt; html page. Every stage has its own pool of workers
+ * and a bounded queue; a class is handed over to the next stage as soon as the
+ * current stage is done with it. Hence the stages overlap and the pages of the
+ * first classes are available long before the whole jar is done. A full queue
+ * blocks the stage feeding it.
+ *
+ * @author gaurs
+ *
+ */
+public class Pipeline implements FileGenerator {
+
+	private final List<ComplexTypeGenerator> generators = new ArrayList<>();
+	private final List<Integer> threads = new ArrayList<>();
+
+	/**
+	 * Classes not yet run through all the stages without a failure
+	 */
+	private final Set<String> incomplete = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Append a stage to the pipeline
+	 *
+	 * @param generator
+	 * @param threadCount
+	 *            number of workers for the stage
+	 * @return
+	 */
+	public Pipeline addStage(ComplexTypeGenerator generator, int threadCount) {
+		generators.add(generator);
+		threads.add(threadCount);
+		return this;
+	}
+
+	@Override
+	public void paint() {
+		paint(ComplexTypeCache.getComplexTypeCache().getDocumentedTypes());
+	}
+
+	/**
+	 * Run only the given classes through the pipeline
+	 * 
+	 * @param complexTypes
+	 */
+	public void paint(Collection<ComplexType> complexTypes) {
+		List<ThreadPoolExecutor> stages = new ArrayList<>(generators.size());
+		for (int threadCount : threads) {
+			stages.add(new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+					new ArrayBlockingQueue<>(threadCount * 4), new BlockingSubmission()));
+		}
+
+		complexTypes.forEach(complexType -> incomplete.add(complexType.getFullyQualifiedName()));
+
+		try {
+			complexTypes.forEach(complexType -> submit(stages, 0, complexType, true));
+
+			// a stage is shut down only once the stage feeding it is done
+			for (ThreadPoolExecutor stage : stages) {
+				stage.shutdown();
+				stage.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			}
+		} catch (InterruptedException | RejectedExecutionException exception) {
+			Logger.error("Interrupted while waiting for the pipeline to complete", exception);
+			stages.forEach(ThreadPoolExecutor::shutdownNow);
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return the classes whose outputs could not be generated in full by any
+	 *         of the stages of the last run of the pipeline
+	 */
+	public Set<String> getIncomplete() {
+		return incomplete;
+	}
+
+	/**
+	 * @param stages
+	 * @param stage
+	 * @param complexType
+	 * @param complete
+	 *            false if any of the earlier stages failed for the class
+	 */
+	private void submit(List<ThreadPoolExecutor> stages, int stage, ComplexType complexType, boolean complete) {
+		stages.get(stage).execute(() -> {
+			boolean generated = false;
+			try {
+				generated = generators.get(stage).paint(complexType);
+			} catch (RuntimeException exception) {
+				Logger.error("Exception occurred while generating files for : " + complexType.getFullyQualifiedName(),
+						exception);
+			}
+
+			if (stage + 1 < stages.size()) {
+				submit(stages, stage + 1, complexType, complete && generated);
+			} else if (complete && generated) {
+				incomplete.remove(complexType.getFullyQualifiedName());
+			}
+		});
+	}
+
+	/**
+	 * Waits for room in the queue instead of rejecting the task
+	 */
+	private static class BlockingSubmission implements RejectedExecutionHandler {
+
+		@Override
+		public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+			try {
+				executor.getQueue().put(task);
+			} catch (InterruptedException exception) {
+				Thread.currentThread().interrupt();
+				throw new RejectedExecutionException(exception);
+			}
+		}
+	}
+}
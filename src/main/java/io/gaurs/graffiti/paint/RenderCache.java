@@ -0,0 +1,163 @@
+package io.gaurs.graffiti.paint;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.pmw.tinylog.Logger;
+
+/**
+ * The outputs of dot kept across the runs in a directory. The outputs of a
+ * graph are stored as &lt;key&gt;.&lt;extension&gt; where the key is the
+ * SHA-256 of its dot source; hence a graph that did not change since an
+ * earlier run is not rendered again. The entries are written to a temporary
+ * file first and then moved in place so that a concurrent run never sees a
+ * partial entry.
+ *
+ * @author gaurs
+ *
+ */
+public class RenderCache {
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final File directory;
+
+	public RenderCache(String directory) {
+		this.directory = new File(directory);
+	}
+
+	/**
+	 * @param dotSource
+	 * @return the key of the outputs rendered from the given dot source
+	 */
+	public String getKey(String dotSource) {
+		return getKey(dotSource.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @param dotSource
+	 * @return the key of the outputs rendered from the given dot source
+	 */
+	public String getKey(byte[] dotSource) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(dotSource);
+
+			char[] key = new char[digest.length * 2];
+			for (int index = 0; index < digest.length; index++) {
+				key[index * 2] = HEX[(digest[index] >> 4) & 0xF];
+				key[index * 2 + 1] = HEX[digest[index] & 0xF];
+			}
+			return new String(key);
+		} catch (NoSuchAlgorithmException exception) {
+			// every java platform is required to support SHA-256
+			throw new IllegalStateException(exception);
+		}
+	}
+
+	/**
+	 * Copy the cached outputs for the given key to the given files
+	 *
+	 * @param key
+	 * @param targets
+	 *            the files mapped to their extension in the cache
+	 * @return false if any of the outputs is not cached
+	 */
+	public boolean restore(String key, Map<String, File> targets) {
+		for (String extension : targets.keySet()) {
+			if (!getEntry(key, extension).isFile()) {
+				return false;
+			}
+		}
+
+		try {
+			for (Entry<String, File> target : targets.entrySet()) {
+				Files.copy(getEntry(key, target.getKey()).toPath(), target.getValue().toPath(),
+						StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException exception) {
+			Logger.error("Exception occurred while reading the render cache entry : " + key, exception);
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * @param key
+	 * @param extension
+	 * @return the cached output as text; null if the same is not cached
+	 */
+	public String read(String key, String extension) {
+		File entry = getEntry(key, extension);
+		if (!entry.isFile()) {
+			return null;
+		}
+
+		try {
+			return new String(Files.readAllBytes(entry.toPath()), StandardCharsets.UTF_8);
+		} catch (IOException exception) {
+			Logger.error("Exception occurred while reading the render cache entry : " + entry.getName(), exception);
+			return null;
+		}
+	}
+
+	/**
+	 * Add the given output files to the cache. A failure is only logged; the
+	 * graph is rendered again by the next run.
+	 *
+	 * @param key
+	 * @param sources
+	 *            the files mapped to their extension in the cache
+	 */
+	public void store(String key, Map<String, File> sources) {
+		for (Entry<String, File> source : sources.entrySet()) {
+			try {
+				Path temporary = Files.createTempFile(directory.toPath(), key, ".tmp");
+				Files.copy(source.getValue().toPath(), temporary, StandardCopyOption.REPLACE_EXISTING);
+				moveInPlace(temporary, getEntry(key, source.getKey()).toPath());
+			} catch (IOException exception) {
+				Logger.error("Exception occurred while adding to the render cache : " + source.getValue(), exception);
+			}
+		}
+	}
+
+	/**
+	 * Add the given output to the cache
+	 *
+	 * @param key
+	 * @param extension
+	 * @param content
+	 */
+	public void store(String key, String extension, String content) {
+		try {
+			Path temporary = Files.createTempFile(directory.toPath(), key, ".tmp");
+			Files.write(temporary, content.getBytes(StandardCharsets.UTF_8));
+			moveInPlace(temporary, getEntry(key, extension).toPath());
+		} catch (IOException exception) {
+			Logger.error("Exception occurred while adding to the render cache : " + key + "." + extension, exception);
+		}
+	}
+
+	private void moveInPlace(Path temporary, Path entry) throws IOException {
+		try {
+			Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException exception) {
+			Files.move(temporary, entry, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	private File getEntry(String key, String extension) {
+		return new File(directory, key + "." + extension);
+	}
+}
@@ -0,0 +1,208 @@
+package io.gaurs.graffiti.paint;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.pmw.tinylog.Logger;
+
+import io.gaurs.graffiti.config.RuntimeConfigurator;
+import io.gaurs.graffiti.model.ComplexType;
+import io.gaurs.graffiti.model.ComplexTypeCache;
+
+/**
+ * Generates a .svg image for every class using the built in
+ * {@link DiagramLayout} instead of the dot executable. The links of the tables
+ * are embedded in the image itself, hence no .map file is generated.
+ *
+ * @author gaurs
+ *
+ */
+public class SvgImageGenerator implements ComplexTypeGenerator {
+
+	private static final String HEADER_COLOR = "#8CB4F0";
+	private static final String ROW_COLOR = "#E2EBF9";
+
+	@Override
+	public void paint() {
+		int threads = RuntimeConfigurator.getConfig().getRenderThreads();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+		try {
+			ComplexTypeCache.getComplexTypeCache().getDocumentedTypes()
+					.forEach(complexType -> executor.execute(() -> generateImageFile(complexType)));
+		} finally {
+			executor.shutdown();
+		}
+
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException exception) {
+			Logger.error("Interrupted while waiting for the image files to be generated", exception);
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public boolean paint(ComplexType complexType) {
+		return generateImageFile(complexType);
+	}
+
+	private boolean generateImageFile(ComplexType complexType) {
+		String pngDirectory = RuntimeConfigurator.getConfig().getPngFilesLocation();
+		File file = new File(pngDirectory + File.separator + complexType.getFullyQualifiedName() + ".svg");
+
+		try {
+			FileUtils.writeStringToFile(file, render(new DiagramLayout(complexType)), "utf-8");
+			return true;
+		} catch (IOException | RuntimeException exception) {
+			Logger.error("Exception occurred while generating image file for : " + complexType.getFullyQualifiedName(),
+					exception);
+			return false;
+		}
+	}
+
+	/**
+	 * Render the given layout as a standalone svg document
+	 *
+	 * @param layout
+	 * @return
+	 */
+	String render(DiagramLayout layout) {
+		StringBuilder content = new StringBuilder();
+
+		content.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>").append(NEW_LINE);
+		content.append("<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\"")
+				.append(" width=\"").append(number(layout.getWidth())).append("pt\"").append(" height=\"")
+				.append(number(layout.getHeight())).append("pt\"").append(" viewBox=\"0 0 ")
+				.append(number(layout.getWidth())).append(' ').append(number(layout.getHeight())).append("\">")
+				.append(NEW_LINE);
+
+		content.append("<title>").append(escape(layout.getClassNode().getTitle())).append("</title>").append(NEW_LINE);
+		content.append("<g font-family=\"Helvetica,Arial,sans-serif\" font-size=\"")
+				.append(number(DiagramLayout.FONT_SIZE)).append("\">").append(NEW_LINE);
+
+		// background
+		content.append("<rect x=\"0\" y=\"0\" width=\"").append(number(layout.getWidth())).append("\" height=\"")
+				.append(number(layout.getHeight())).append("\" fill=\"#ffffff\"/>").append(NEW_LINE);
+
+		// edges are drawn first so that the tables stay on top
+		layout.getEdges().forEach(edge -> appendEdge(content, edge));
+
+		appendNode(content, layout.getClassNode());
+		layout.getRelatedNodes().forEach(node -> appendNode(content, node));
+
+		// the graph label
+		content.append("<text x=\"").append(number(DiagramLayout.MARGIN)).append("\" y=\"")
+				.append(number(layout.getLabelY())).append("\">").append(escape(DiagramLayout.LABEL))
+				.append("</text>").append(NEW_LINE);
+
+		content.append("</g>").append(NEW_LINE);
+		content.append("</svg>").append(NEW_LINE);
+		return content.toString();
+	}
+
+	/**
+	 * A table is a header cell followed by a cell per row; the whole table
+	 * links to the page of the corresponding type.
+	 *
+	 * @param content
+	 * @param node
+	 */
+	private void appendNode(StringBuilder content, DiagramLayout.Node node) {
+		content.append("<g class=\"node\">").append(NEW_LINE);
+		content.append("<a xlink:href=\"").append(escape(node.getLink())).append("\" target=\"_top\">")
+				.append(NEW_LINE);
+		content.append("<title>").append(escape(node.getTitle())).append("</title>").append(NEW_LINE);
+
+		appendCell(content, node, -1, HEADER_COLOR, node.getTitle(), true);
+		for (int row = 0; row < node.getRows().size(); row++) {
+			appendCell(content, node, row, ROW_COLOR, node.getRows().get(row), false);
+		}
+
+		content.append("</a>").append(NEW_LINE);
+		content.append("</g>").append(NEW_LINE);
+	}
+
+	private void appendCell(StringBuilder content, DiagramLayout.Node node, int row, String color, String text,
+			boolean center) {
+		double y = node.getRowCenter(row) - DiagramLayout.ROW_HEIGHT / 2;
+
+		content.append("<rect x=\"").append(number(node.getX())).append("\" y=\"").append(number(y))
+				.append("\" width=\"").append(number(node.getWidth())).append("\" height=\"")
+				.append(number(DiagramLayout.ROW_HEIGHT)).append("\" fill=\"").append(color)
+				.append("\" stroke=\"#000000\"/>").append(NEW_LINE);
+
+		double textX = center ? node.getX() + node.getWidth() / 2 : node.getX() + DiagramLayout.CELL_PADDING;
+		content.append("<text x=\"").append(number(textX)).append("\" y=\"")
+				.append(number(node.getRowCenter(row) + DiagramLayout.FONT_SIZE / 3)).append("\"")
+				.append(center ? " text-anchor=\"middle\"" : "").append(">").append(escape(text)).append("</text>")
+				.append(NEW_LINE);
+	}
+
+	/**
+	 * A cubic curve from the right edge of the port to the left edge of the
+	 * target header; a self reference loops back into the header of the class
+	 * on its right.
+	 *
+	 * @param content
+	 * @param edge
+	 */
+	private void appendEdge(StringBuilder content, DiagramLayout.Edge edge) {
+		DiagramLayout.Node source = edge.getSource();
+		DiagramLayout.Node target = edge.getTarget();
+
+		double startX = source.getX() + source.getWidth();
+		double startY = source.getRowCenter(edge.getPort());
+		double endY = target.getRowCenter(-1);
+
+		double endX;
+		double control1X;
+		double control2X;
+		double direction;
+
+		if (edge.isLoop()) {
+			endX = startX;
+			control1X = startX + DiagramLayout.LOOP_WIDTH;
+			control2X = startX + DiagramLayout.LOOP_WIDTH;
+			direction = -1;
+		} else {
+			endX = target.getX();
+			double middle = (startX + endX) / 2;
+			control1X = middle;
+			control2X = middle;
+			direction = 1;
+		}
+
+		// leave room for the arrow head
+		double arrowLength = 8;
+		double arrowHalfWidth = 3;
+		double lineEndX = endX - direction * arrowLength;
+
+		content.append("<g class=\"edge\">").append(NEW_LINE);
+		content.append("<path d=\"M").append(number(startX)).append(',').append(number(startY)).append(" C")
+				.append(number(control1X)).append(',').append(number(startY)).append(' ').append(number(control2X))
+				.append(',').append(number(endY)).append(' ').append(number(lineEndX)).append(',')
+				.append(number(endY)).append("\" fill=\"none\" stroke=\"#000000\"/>").append(NEW_LINE);
+
+		content.append("<polygon points=\"").append(number(lineEndX)).append(',')
+				.append(number(endY - arrowHalfWidth)).append(' ').append(number(endX)).append(',')
+				.append(number(endY)).append(' ').append(number(lineEndX)).append(',')
+				.append(number(endY + arrowHalfWidth)).append("\" fill=\"#000000\" stroke=\"#000000\"/>")
+				.append(NEW_LINE);
+		content.append("</g>").append(NEW_LINE);
+	}
+
+	private String number(double value) {
+		return String.format(Locale.US, "%.2f", value);
+	}
+
+	private String escape(String value) {
+		return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+	}
+}
@@ -0,0 +1,242 @@
+package io.gaurs.graffiti.bytecode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Reads the class files of the fixtures below as compiled along with the
+ * tests, and of the hand written ones for what javac 8 does not emit.
+ *
+ * @author gaurs
+ *
+ */
+public class ClassFileReaderTest {
+
+	private static final String FIXTURE = ClassFileReaderTest.class.getName() + "$Fixture";
+
+	private final ClassFileReader classFileReader = new ClassFileReader();
+
+	/**
+	 * A generic class with a generic field, an inner class and a constant of
+	 * every size
+	 */
+	static abstract class Fixture<T extends Number> implements Comparable<Fixture<T>>, Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		static final double RATIO = 0.5;
+
+		Map<String, List<T>> values;
+
+		int[] counts;
+
+		abstract <E extends Exception> List<T> find(String name, T[] defaults) throws E;
+
+		class Inner {
+			T value;
+		}
+	}
+
+	@Test
+	public void readsTheNamesOfTheClassAndItsSuperTypes() throws IOException {
+		ClassDetails classDetails = read(FIXTURE);
+
+		assertEquals(FIXTURE, classDetails.getName());
+		assertEquals("java.lang.Object", classDetails.getSuperName());
+		assertEquals(Arrays.asList("java.lang.Comparable", "java.io.Serializable"), classDetails.getInterfaces());
+		assertTrue(classDetails.isAbstract());
+		assertFalse(classDetails.isInterface());
+	}
+
+	@Test
+	public void readsTheGenericSignatures() throws IOException {
+		ClassDetails classDetails = read(FIXTURE);
+
+		assertEquals("<T:Ljava/lang/Number;>Ljava/lang/Object;Ljava/lang/Comparable<L" + internalName(FIXTURE)
+				+ "<TT;>;>;Ljava/io/Serializable;", classDetails.getSignature());
+
+		MemberDetails values = getMember(classDetails.getFields(), "values");
+		assertEquals("Ljava/util/Map;", values.getDescriptor());
+		assertEquals("java.util.Map<java.lang.String, java.util.List<T>>",
+				SignatureParser.typeName(values.getGenericDescriptor()));
+
+		// no signature is written for a type that is not generic
+		MemberDetails counts = getMember(classDetails.getFields(), "counts");
+		assertNull(counts.getSignature());
+		assertEquals("int[]", SignatureParser.typeName(counts.getGenericDescriptor()));
+
+		MemberDetails find = getMember(classDetails.getMethods(), "find");
+		assertEquals(Arrays.asList("java.lang.String", "T[]", "java.util.List<T>"),
+				SignatureParser.methodTypeNames(find.getGenericDescriptor()));
+	}
+
+	@Test
+	public void readsTheInnerClass() throws IOException {
+		ClassDetails classDetails = read(FIXTURE + "$Inner");
+
+		assertEquals(FIXTURE + "$Inner", classDetails.getName());
+		assertEquals("T", SignatureParser.typeName(getMember(classDetails.getFields(), "value").getGenericDescriptor()));
+
+		// the reference to the enclosing instance is generated by the
+		// compiler
+		MemberDetails outer = getMember(classDetails.getFields(), "this$0");
+		assertTrue(outer.isSynthetic());
+		assertEquals("L" + internalName(FIXTURE) + ";", outer.getDescriptor());
+	}
+
+	@Test
+	public void tellsTheNestedClassesApart() throws IOException {
+		Runnable anonymous = new Runnable() {
+			@Override
+			public void run() {
+			}
+		};
+		class Local {
+		}
+
+		ClassDetails test = read(ClassFileReaderTest.class.getName());
+		assertFalse(test.isNested());
+		assertFalse(test.isAnonymousOrLocal());
+
+		// a member class is listed along with the member classes it encloses
+		ClassDetails fixture = read(FIXTURE);
+		assertTrue(fixture.isNested());
+		assertFalse(fixture.isAnonymousOrLocal());
+
+		ClassDetails inner = read(FIXTURE + "$Inner");
+		assertTrue(inner.isNested());
+		assertFalse(inner.isAnonymousOrLocal());
+
+		ClassDetails anonymousClass = read(anonymous.getClass().getName());
+		assertTrue(anonymousClass.isNested());
+		assertTrue(anonymousClass.isAnonymousOrLocal());
+
+		ClassDetails localClass = read(Local.class.getName());
+		assertTrue(localClass.isNested());
+		assertTrue(localClass.isAnonymousOrLocal());
+		assertFalse(localClass.isSynthetic());
+	}
+
+	@Test
+	public void readsTheAccessFlagsOnly() throws IOException {
+		try (InputStream stream = getClassFile(FIXTURE)) {
+			int accessFlags = classFileReader.readAccessFlags(stream);
+			assertEquals(ClassFileReader.ACC_ABSTRACT, accessFlags & ClassFileReader.ACC_ABSTRACT);
+			assertEquals(0, accessFlags & ClassFileReader.ACC_PUBLIC);
+		}
+	}
+
+	@Test
+	public void readsTheModuleAndPackageConstants() throws IOException {
+		ClassDetails classDetails = classFileReader.read(new ByteArrayInputStream(moduleInfo()));
+
+		assertEquals("module-info", classDetails.getName());
+		assertNull(classDetails.getSuperName());
+		assertEquals(ClassFileReader.ACC_MODULE, classDetails.getAccessFlags() & ClassFileReader.ACC_MODULE);
+		assertTrue(classDetails.getFields().isEmpty());
+		assertTrue(classDetails.getMethods().isEmpty());
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsAnInvalidMagicNumber() throws IOException {
+		byte[] classFile = moduleInfo();
+		classFile[0] = 0;
+		classFileReader.read(new ByteArrayInputStream(classFile));
+	}
+
+	@Test(expected = EOFException.class)
+	public void rejectsATruncatedClassFile() throws IOException {
+		byte[] classFile = moduleInfo();
+		classFileReader.read(new ByteArrayInputStream(Arrays.copyOf(classFile, classFile.length - 4)));
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsAnInvalidConstantPoolTag() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(bytes);
+		output.writeInt(0xCAFEBABE);
+		output.writeShort(0);
+		output.writeShort(52);
+		output.writeShort(2);
+		output.writeByte(2);
+		output.writeShort(0);
+
+		classFileReader.read(new ByteArrayInputStream(bytes.toByteArray()));
+	}
+
+	/**
+	 * A module-info.class as written by javac 9 for module m { }
+	 */
+	private byte[] moduleInfo() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(bytes);
+		output.writeInt(0xCAFEBABE);
+		output.writeShort(0);
+		output.writeShort(53);
+
+		// #1 utf8 module-info, #2 class #1, #3 utf8 m, #4 module #3, #5 utf8
+		// p, #6 package #5
+		output.writeShort(7);
+		output.writeByte(1);
+		output.writeUTF("module-info");
+		output.writeByte(7);
+		output.writeShort(1);
+		output.writeByte(1);
+		output.writeUTF("m");
+		output.writeByte(19);
+		output.writeShort(3);
+		output.writeByte(1);
+		output.writeUTF("p");
+		output.writeByte(20);
+		output.writeShort(5);
+
+		output.writeShort(ClassFileReader.ACC_MODULE);
+		output.writeShort(2);
+		output.writeShort(0);
+
+		// interfaces, fields, methods and attributes
+		output.writeShort(0);
+		output.writeShort(0);
+		output.writeShort(0);
+		output.writeShort(0);
+		return bytes.toByteArray();
+	}
+
+	private ClassDetails read(String className) throws IOException {
+		try (InputStream stream = getClassFile(className)) {
+			return classFileReader.read(stream);
+		}
+	}
+
+	private InputStream getClassFile(String className) {
+		return ClassFileReaderTest.class.getResourceAsStream("/" + internalName(className) + ".class");
+	}
+
+	private String internalName(String className) {
+		return className.replace('.', '/');
+	}
+
+	private MemberDetails getMember(List<MemberDetails> members, String name) {
+		for (MemberDetails member : members) {
+			if (name.equals(member.getName())) {
+				return member;
+			}
+		}
+		throw new AssertionError("No member named " + name);
+	}
+}
@@ -0,0 +1,93 @@
+package io.gaurs.graffiti.bytecode;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * The type names are compared with those of
+ * {@link java.lang.reflect.Type#getTypeName()} for the same declarations.
+ *
+ * @author gaurs
+ *
+ */
+public class SignatureParserTest {
+
+	@Test
+	public void decodesThePrimitivesAndArrays() {
+		assertEquals("int", SignatureParser.typeName("I"));
+		assertEquals("boolean", SignatureParser.typeName("Z"));
+		assertEquals("long[][]", SignatureParser.typeName("[[J"));
+		assertEquals("java.lang.String[]", SignatureParser.typeName("[Ljava/lang/String;"));
+	}
+
+	@Test
+	public void decodesTheGenericTypes() {
+		assertEquals("java.util.Map<K, ? extends java.lang.Number>",
+				SignatureParser.typeName("Ljava/util/Map<TK;+Ljava/lang/Number;>;"));
+		assertEquals("java.util.List<? super T[]>", SignatureParser.typeName("Ljava/util/List<-[TT;>;"));
+		assertEquals("java.lang.Class<?>", SignatureParser.typeName("Ljava/lang/Class<*>;"));
+		assertEquals("java.util.List<java.util.Map<java.lang.String, java.lang.Integer>>",
+				SignatureParser.typeName("Ljava/util/List<Ljava/util/Map<Ljava/lang/String;Ljava/lang/Integer;>;>;"));
+	}
+
+	@Test
+	public void decodesTheInnerClassOfAGenericClass() {
+		assertEquals("a.Outer<T>$Inner<java.lang.String>",
+				SignatureParser.typeName("La/Outer<TT;>.Inner<Ljava/lang/String;>;"));
+		assertEquals("a.Outer$Inner", SignatureParser.typeName("La/Outer$Inner;"));
+	}
+
+	@Test
+	public void erasesTheDescriptors() {
+		assertEquals("int", SignatureParser.erasure("I"));
+		assertEquals("java.lang.String", SignatureParser.erasure("Ljava/lang/String;"));
+		assertEquals("[Ljava.lang.String;", SignatureParser.erasure("[Ljava/lang/String;"));
+	}
+
+	@Test
+	public void decodesTheMethodSignatures() {
+		assertEquals(Arrays.asList("int", "java.lang.String[]", "void"),
+				SignatureParser.methodTypeNames("(I[Ljava/lang/String;)V"));
+
+		// the type parameters and the throws clause are left out
+		assertEquals(Arrays.asList("T", "java.util.List<? extends T>", "java.util.Set<T>"),
+				SignatureParser.methodTypeNames(
+						"<T::Ljava/lang/Comparable<-TT;>;E:Ljava/lang/Exception;>(TT;Ljava/util/List<+TT;>;)Ljava/util/Set<TT;>;^TE;"));
+		assertEquals(Arrays.asList("java.lang.Object"), SignatureParser.methodTypeNames("()Ljava/lang/Object;"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsAnUnknownType() {
+		SignatureParser.typeName("Q");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsAnUnterminatedClassType() {
+		SignatureParser.typeName("Ljava/util/List<TT;>");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsAnUnterminatedTypeVariable() {
+		SignatureParser.typeName("TT");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsAMethodSignatureWithoutParameters() {
+		SignatureParser.methodTypeNames("<T:Ljava/lang/Object;>TT;");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsAMethodSignatureWithoutReturnType() {
+		SignatureParser.methodTypeNames("(I)");
+	}
+
+	@Test
+	public void marksAMalformedMethodSignature() {
+		MethodDescriptor methodDescriptor = MethodDescriptor
+				.decode(new MemberDetails(0, "get", "()Ljava/lang/Object;", "()TT"), name -> name);
+		assertEquals(true, methodDescriptor.isMalformed());
+	}
+}